@@ -8,11 +8,16 @@ import org.bukkit.inventory.ItemStack;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Items that are compatible with server versions 1.7+
@@ -1339,54 +1344,185 @@ public enum CompatibleMaterial {
     ;
 
     private final String modern, modern2, legacy;
-    private final LegacyMaterialAnalouge compatibleMaterial;
-    private final LegacyMaterialBlockType legacyBlockMaterial;
     private final boolean legacyRequiresData;
     // some materials (I'm looking at you, GREEN_DYE) have changed ID more than once
     // minVersion is the min for modern, and minVersion2 is min to use legacyCompat1
     private final ServerVersion minVersion, minVersion2;
     private final byte legacyData;
-    private final Material material;
-    private final Byte data;
+    // the Bukkit material on this server, resolved on first use
+    private volatile Binding binding;
     // quick test to see if our version is < 1.13
     protected static final boolean useLegacy = ServerVersion.isServerVersionBelow(ServerVersion.V1_13);
-    // map to speed up name->material lookups
-    private static final Map<String, CompatibleMaterial> lookupMap = new HashMap<>();
 
-    static {
-        for (CompatibleMaterial m : values()) {
-            if (m.isRecycled()) {
-                lookupMap.put(m.legacy, m);
-                continue;
+    /**
+     * The lookup tables. They are built on first use rather than when the enum is loaded,
+     * so plugins only using a few constants don't resolve every material on startup.
+     */
+    private static final class Lookups {
+        // map to speed up name->material lookups
+        static final Map<String, CompatibleMaterial> lookupMap = new HashMap<>();
+        // lookups by Bukkit material, precomputed so the hot paths neither build strings nor scan all values
+        static final Map<Material, CompatibleMaterial> byMaterial = new EnumMap<>(Material.class);
+        static final Map<Material, CompatibleMaterial> byMaterialName = new EnumMap<>(Material.class);
+        static final Map<Material, CompatibleMaterial> byItemWithoutData = new EnumMap<>(Material.class);
+        // the following arrays are indexed by the legacy data value
+        static final Map<Material, CompatibleMaterial[]> byItemData = new EnumMap<>(Material.class);
+        static final Map<Material, CompatibleMaterial[]> byMaterialData = new EnumMap<>(Material.class);
+        static final Map<Material, CompatibleMaterial[]> byBlockData = new EnumMap<>(Material.class);
+        static final Map<Material, CompatibleMaterial[]> byLegacyBlock = new EnumMap<>(Material.class);
+
+        static {
+            for (CompatibleMaterial m : values()) {
+                if (m.isRecycled()) {
+                    lookupMap.put(m.legacy, m);
+                    continue;
+                }
+
+                lookupMap.put(m.name(), m);
+                if (!m.usesCompatibility()) {
+                    Binding binding = m.binding();
+                    lookupMap.put(binding.material + ":" + (binding.data == null ? "" : binding.data), m);
+                }
             }
 
-            lookupMap.put(m.name(), m);
-            if (!m.usesCompatibility()) {
-                lookupMap.put(m.material + ":" + (m.data == null ? "" : m.data), m);
+            for (CompatibleMaterial m : values()) {
+                if (!m.usesCompatibility()) {
+                    LegacyMaterialBlockType legacyBlockMaterial = m.binding().legacyBlockMaterial;
+
+                    if (m.legacy != null && !lookupMap.containsKey(m.legacy)) {
+                        lookupMap.put(m.legacy, m);
+                    }
+
+                    if (m.modern2 != null && !lookupMap.containsKey(m.modern2)) {
+                        lookupMap.put(m.modern2, m);
+                    }
+
+                    if (legacyBlockMaterial != null && !lookupMap.containsKey(legacyBlockMaterial.blockMaterialName)) {
+                        lookupMap.put(legacyBlockMaterial.blockMaterialName, m);
+                    }
+
+                    if (legacyBlockMaterial != null && !lookupMap.containsKey(legacyBlockMaterial.alternateBlockMaterialName)) {
+                        lookupMap.put(legacyBlockMaterial.alternateBlockMaterialName, m);
+                    }
+                }
             }
-        }
 
-        for (CompatibleMaterial m : values()) {
-            if (!m.usesCompatibility()) {
-                if (m.legacy != null && !lookupMap.containsKey(m.legacy)) {
-                    lookupMap.put(m.legacy, m);
+            for (Material mat : Material.values()) {
+                CompatibleMaterial named = lookupMap.get(mat.name());
+                if (named != null) {
+                    byMaterialName.put(mat, named);
+                }
+
+                CompatibleMaterial withoutData = useLegacy ? lookupMap.get(mat.name() + ":0") : null;
+                if (withoutData != null || named != null) {
+                    byMaterial.put(mat, withoutData != null ? withoutData : named);
+                }
+
+                CompatibleMaterial item = lookupMap.get(mat.name() + ":");
+                if (item != null) {
+                    byItemWithoutData.put(mat, item);
+                }
+
+                if (useLegacy) {
+                    CompatibleMaterial[] blocks = new CompatibleMaterial[16];
+                    for (byte data = 0; data < blocks.length; ++data) {
+                        blocks[data] = lookupLegacyBlock(mat, data);
+                    }
+
+                    byLegacyBlock.put(mat, blocks);
+                }
+            }
+
+            for (Map.Entry<String, CompatibleMaterial> entry : lookupMap.entrySet()) {
+                String key = entry.getKey();
+                int separator = key.indexOf(':');
+
+                if (separator != -1 && separator != key.length() - 1) {
+                    Material mat = Material.getMaterial(key.substring(0, separator));
+                    byte data = Byte.parseByte(key.substring(separator + 1));
+
+                    if (mat != null && data >= 0) {
+                        putData(byItemData, mat, data, entry.getValue());
+                    }
                 }
+            }
 
-                if (m.modern2 != null && !lookupMap.containsKey(m.modern2)) {
-                    lookupMap.put(m.modern2, m);
+            // the first match in declaration order wins, like the lookups scanning all values did
+            for (CompatibleMaterial m : values()) {
+                Binding binding = m.binding();
+
+                if (binding.material == null || binding.data == null || binding.data < 0) {
+                    continue;
                 }
 
-                if (m.legacyBlockMaterial != null && !lookupMap.containsKey(m.legacyBlockMaterial.blockMaterialName)) {
-                    lookupMap.put(m.legacyBlockMaterial.blockMaterialName, m);
+                putData(byMaterialData, binding.material, binding.data, m);
+
+                if (m.isValidItem() && !m.usesCompatibility()) {
+                    putData(byBlockData, binding.material, binding.data, m);
                 }
+            }
+        }
+    }
+
+    /**
+     * One bit set per property, indexed by the ordinal of the material. Built on first use.
+     */
+    private static final class PropertyTable {
+        static final BitSet[] bits = new BitSet[Property.values().length];
+
+        static {
+            CompatibleMaterial[] materials = values();
 
-                if (m.legacyBlockMaterial != null && !lookupMap.containsKey(m.legacyBlockMaterial.alternateBlockMaterialName)) {
-                    lookupMap.put(m.legacyBlockMaterial.alternateBlockMaterialName, m);
+            for (Property property : Property.values()) {
+                BitSet propertyBits = new BitSet(materials.length);
+
+                for (CompatibleMaterial m : materials) {
+                    if (property.check.test(m)) {
+                        propertyBits.set(m.ordinal());
+                    }
                 }
+
+                bits[property.ordinal()] = propertyBits;
             }
         }
     }
 
+    /**
+     * What a material resolves to on the running server
+     */
+    private static final class Binding {
+        final LegacyMaterialAnalouge compatibleMaterial;
+        final LegacyMaterialBlockType legacyBlockMaterial;
+        final Material material;
+        final Byte data;
+
+        Binding(LegacyMaterialAnalouge compatibleMaterial, LegacyMaterialBlockType legacyBlockMaterial, Material material, Byte data) {
+            this.compatibleMaterial = compatibleMaterial;
+            this.legacyBlockMaterial = legacyBlockMaterial;
+            this.material = material;
+            this.data = data;
+        }
+    }
+
+    private static void putData(Map<Material, CompatibleMaterial[]> table, Material mat, int data, CompatibleMaterial m) {
+        CompatibleMaterial[] materials = table.get(mat);
+
+        if (materials == null || materials.length <= data) {
+            materials = materials == null ? new CompatibleMaterial[data + 1] : Arrays.copyOf(materials, data + 1);
+            table.put(mat, materials);
+        }
+
+        if (materials[data] == null) {
+            materials[data] = m;
+        }
+    }
+
+    private static CompatibleMaterial getData(Map<Material, CompatibleMaterial[]> table, Material mat, int data) {
+        CompatibleMaterial[] materials = table.get(mat);
+
+        return materials != null && data >= 0 && data < materials.length ? materials[data] : null;
+    }
+
     CompatibleMaterial() {
         this(ServerVersion.UNKNOWN, null, null);
     }
@@ -1415,7 +1551,27 @@ public enum CompatibleMaterial {
         this.legacy = legacyMaterial;
         this.legacyData = legacyData == null ? 0 : legacyData;
         this.legacyRequiresData = legacyData != null;
-        this.compatibleMaterial = LegacyMaterialAnalouge.lookupAnalouge(modern);
+    }
+
+    /**
+     * Resolve the Bukkit material for the running server on first use. <br>
+     * Resolving is side effect free, so two threads racing here just both store an equal result.
+     */
+    private Binding binding() {
+        Binding binding = this.binding;
+
+        if (binding == null) {
+            this.binding = binding = resolve();
+        }
+
+        return binding;
+    }
+
+    private Binding resolve() {
+        LegacyMaterialAnalouge compatibleMaterial = LegacyMaterialAnalouge.lookupAnalouge(modern);
+        LegacyMaterialBlockType legacyBlockMaterial;
+        Material material;
+        Byte data;
 
         if (compatibleMaterial != null && ServerVersion.isServerVersionBelow(compatibleMaterial.versionLessThan)) {
             // server older than this item: use a proxy
@@ -1427,9 +1583,9 @@ public enum CompatibleMaterial {
         } else if (modern2 != null && ServerVersion.isServerVersionAtLeast(minVersion2)) {
             material = Material.getMaterial(modern2);
             data = null;
-        } else if (legacyMaterial != null && (compatibleMaterial == null || ServerVersion.isServerVersionAtLeast(compatibleMaterial.versionLessThan))) {
+        } else if (legacy != null && (compatibleMaterial == null || ServerVersion.isServerVersionAtLeast(compatibleMaterial.versionLessThan))) {
             // we're using a server that has the legacy value available
-            material = Material.getMaterial(legacyMaterial);
+            material = Material.getMaterial(legacy);
             data = legacyRequiresData ? this.legacyData : null;
         } else if (compatibleMaterial != null) {
             // no match: use a proxy
@@ -1445,20 +1601,23 @@ public enum CompatibleMaterial {
         } else {
             legacyBlockMaterial = null;
         }
+
+        return new Binding(compatibleMaterial, legacyBlockMaterial, material, data);
     }
 
     /**
      * @return the Bukkit Material for this material
      */
     public Material getMaterial() {
-        return material;
+        return binding().material;
     }
 
     /**
      * @return the Bukkit Material required to create a block
      */
     public Material getBlockMaterial() {
-        return legacyBlockMaterial != null ? legacyBlockMaterial.getBlockMaterial() : (isBlock() ? material : AIR.material);
+        LegacyMaterialBlockType legacyBlockMaterial = binding().legacyBlockMaterial;
+        return legacyBlockMaterial != null ? legacyBlockMaterial.getBlockMaterial() : (isBlock() ? getMaterial() : AIR.getMaterial());
     }
 
     /**
@@ -1474,11 +1633,13 @@ public enum CompatibleMaterial {
      * @return an item that resembles this material for the current server version
      */
     public ItemStack getItem(int amount) {
+        Binding binding = binding();
+
         if (usesCompatibility()) {
-            return compatibleMaterial.getItem();
+            return binding.compatibleMaterial.getItem();
         }
 
-        return data != null ? new ItemStack(material, amount, data) : new ItemStack(material);
+        return binding.data != null ? new ItemStack(binding.material, amount, binding.data) : new ItemStack(binding.material);
     }
 
     /**
@@ -1492,7 +1653,8 @@ public enum CompatibleMaterial {
      * Does this material need to use a fallback item on this server?
      */
     public boolean usesCompatibility() {
-        return compatibleMaterial != null && material == compatibleMaterial.material;
+        Binding binding = binding();
+        return binding.compatibleMaterial != null && binding.material == binding.compatibleMaterial.material;
         //return compatibleMaterial != null && ServerVersion.isServerVersionBelow(compatibleMaterial.versionLessThan);
     }
 
@@ -1507,6 +1669,7 @@ public enum CompatibleMaterial {
      * Get the legacy data value for this material if there is one, or -1 if none
      */
     public byte getData() {
+        Byte data = binding().data;
         return data != null ? data : -1;
     }
 
@@ -1516,7 +1679,7 @@ public enum CompatibleMaterial {
      * @return true if server is legacy and this item requires data to be defined.
      */
     public boolean usesData() {
-        return data != null;
+        return binding().data != null;
     }
 
     /**
@@ -1543,7 +1706,7 @@ public enum CompatibleMaterial {
      * @return LegacyMaterial or null if none found
      */
     public static CompatibleMaterial getMaterial(String name, CompatibleMaterial def) {
-        return name == null ? def : lookupMap.getOrDefault(name.toUpperCase(), def);
+        return name == null ? def : Lookups.lookupMap.getOrDefault(name.toUpperCase(), def);
     }
 
     /**
@@ -1558,14 +1721,7 @@ public enum CompatibleMaterial {
             return null;
         }
 
-        if (useLegacy) {
-            CompatibleMaterial compatibleMaterial = lookupMap.get(mat.name() + ":0");
-            if (compatibleMaterial != null) {
-                return compatibleMaterial;
-            }
-        }
-
-        return lookupMap.get(mat.name());
+        return Lookups.byMaterial.get(mat);
     }
 
     /**
@@ -1580,9 +1736,8 @@ public enum CompatibleMaterial {
             return null;
         }
 
-        String key = item.getType() + ":";
-        CompatibleMaterial m = lookupMap.get(key);
-        return m != null ? m : lookupMap.get(key + item.getDurability());
+        CompatibleMaterial m = Lookups.byItemWithoutData.get(item.getType());
+        return m != null ? m : getData(Lookups.byItemData, item.getType(), item.getDurability());
     }
 
     /**
@@ -1598,12 +1753,9 @@ public enum CompatibleMaterial {
         } else { // Pre-Flattening
             if (block != null) {
                 if (block.getData() != 0) {
-                    for (CompatibleMaterial cm : CompatibleMaterial.values()) {
-                        if (cm.isValidItem() && !cm.usesCompatibility() && cm.getMaterial() != null && cm.getMaterial().equals(block.getType())) {
-                            if (cm.getData() == block.getData()) {
-                                return cm;
-                            }
-                        }
+                    CompatibleMaterial cm = getData(Lookups.byBlockData, block.getType(), block.getData());
+                    if (cm != null) {
+                        return cm;
                     }
                 }
                 return CompatibleMaterial.getMaterialFromNewBlock(block);
@@ -1665,10 +1817,9 @@ public enum CompatibleMaterial {
         // Pre-Flattening
         if (mat != null) {
             if (data != 0) {
-                for (CompatibleMaterial cm : CompatibleMaterial.values()) {
-                    if (cm.getMaterial() != null && cm.getMaterial().equals(mat) && cm.getData() == data) {
-                        return cm;
-                    }
+                CompatibleMaterial cm = getData(Lookups.byMaterialData, mat, data);
+                if (cm != null) {
+                    return cm;
                 }
             }
 
@@ -1686,16 +1837,23 @@ public enum CompatibleMaterial {
         Material mat = block.getType();
 
         if (useLegacy) {
-            LegacyMaterialBlockType legacyBlock = LegacyMaterialBlockType.getFromLegacy(mat.name(), block.getData());
-            if (legacyBlock != null) {
-                return lookupMap.get(legacyBlock.name());
-            }
+            byte data = block.getData();
+            CompatibleMaterial[] blocks = Lookups.byLegacyBlock.get(mat);
+
+            return blocks != null && data >= 0 && data < blocks.length ? blocks[data] : lookupLegacyBlock(mat, data);
+        }
+
+        return Lookups.byMaterialName.get(mat);
+    }
 
-            CompatibleMaterial withData = lookupMap.get(mat.name() + ":" + block.getData());
-            return withData == null ? lookupMap.get(mat.name()) : withData;
+    private static CompatibleMaterial lookupLegacyBlock(Material mat, byte data) {
+        LegacyMaterialBlockType legacyBlock = LegacyMaterialBlockType.getFromLegacy(mat.name(), data);
+        if (legacyBlock != null) {
+            return Lookups.lookupMap.get(legacyBlock.name());
         }
 
-        return lookupMap.get(mat.name());
+        CompatibleMaterial withData = Lookups.lookupMap.get(mat.name() + ":" + data);
+        return withData == null ? Lookups.lookupMap.get(mat.name()) : withData;
     }
 
     /**
@@ -1716,11 +1874,11 @@ public enum CompatibleMaterial {
             LegacyMaterialBlockType legacyBlock = LegacyMaterialBlockType.getFromLegacy(name.toUpperCase());
 
             if (legacyBlock != null) {
-                return lookupMap.get(legacyBlock.name());
+                return Lookups.lookupMap.get(legacyBlock.name());
             }
         }
 
-        return lookupMap.get(name.toUpperCase());
+        return Lookups.lookupMap.get(name.toUpperCase());
     }
 
     /**
@@ -1742,11 +1900,11 @@ public enum CompatibleMaterial {
             LegacyMaterialBlockType legacyBlock = LegacyMaterialBlockType.getFromLegacy(name.toUpperCase());
 
             if (legacyBlock != null) {
-                return lookupMap.get(legacyBlock.name());
+                return Lookups.lookupMap.get(legacyBlock.name());
             }
         }
 
-        return lookupMap.getOrDefault(name.toUpperCase(), def);
+        return Lookups.lookupMap.getOrDefault(name.toUpperCase(), def);
     }
 
     /**
@@ -1765,11 +1923,11 @@ public enum CompatibleMaterial {
             LegacyMaterialBlockType legacyBlock = LegacyMaterialBlockType.getFromLegacy(mat.name());
 
             if (legacyBlock != null) {
-                return lookupMap.get(legacyBlock.name());
+                return Lookups.lookupMap.get(legacyBlock.name());
             }
         }
 
-        return lookupMap.get(mat.name());
+        return Lookups.lookupMap.get(mat.name());
     }
 
     static LinkedHashSet<CompatibleMaterial> all = null;
@@ -1803,7 +1961,7 @@ public enum CompatibleMaterial {
             return null;
         }
 
-        CompatibleMaterial m = lookupMap.get(name.toUpperCase());
+        CompatibleMaterial m = Lookups.lookupMap.get(name.toUpperCase());
         if (m != null) {
             return m.getItem();
         }
@@ -1832,8 +1990,10 @@ public enum CompatibleMaterial {
     public void applyToBlock(Block block) {
         if (block == null) return;
 
-        block.setType(material);
+        Binding binding = binding();
+        block.setType(binding.material);
 
+        Byte data = binding.data;
         if (data != null && data != -1 && ServerVersion.isServerVersionAtOrBelow(ServerVersion.V1_12)) {
             try {
                 methodSetData.invoke(block, data);
@@ -1851,10 +2011,11 @@ public enum CompatibleMaterial {
      * @return true if material of the ItemStack matches this item, corrected for legacy data
      */
     public boolean matches(ItemStack item) {
+        Binding binding = binding();
         return item != null &&
-                !usesCompatibility() && item.getType() == material &&
+                !usesCompatibility() && item.getType() == binding.material &&
                 // eons ago, ItemStack.getData() would return a byte. 1.7 doesn't, though.
-                (data == null || item.getDurability() == data);
+                (binding.data == null || item.getDurability() == binding.data);
     }
 
     /**
@@ -1927,21 +2088,21 @@ public enum CompatibleMaterial {
      * Check to see if this is a material that can exist as a block
      */
     public boolean isBlock() {
-        return material != null && material.isBlock();
+        return hasProperty(Property.BLOCK);
     }
 
     /**
      * Check to see if this is an item that can be consumed to restore hunger
      */
     public boolean isEdible() {
-        return material != null && material.isEdible();
+        return hasProperty(Property.EDIBLE);
     }
 
     /**
      * Check if the material is a block and can be built on
      */
     public boolean isSolid() {
-        return material != null && material.isSolid();
+        return hasProperty(Property.SOLID);
     }
 
     /**
@@ -1955,6 +2116,7 @@ public enum CompatibleMaterial {
      */
     @Deprecated
     public boolean isTransparent() {
+        Material material = getMaterial();
         return material != null && material.isTransparent();
     }
 
@@ -1962,20 +2124,24 @@ public enum CompatibleMaterial {
      * Check if the material is a block and can catch fire
      */
     public boolean isFlammable() {
-        return material != null && material.isFlammable();
+        return hasProperty(Property.FLAMMABLE);
     }
 
     /**
      * Check if the material is a block and can be destroyed by burning
      */
     public boolean isBurnable() {
-        return material != null && material.isBurnable();
+        return hasProperty(Property.BURNABLE);
     }
 
     /**
      * Checks if this Material can be used as fuel in a Furnace
      */
     public boolean isFuel() {
+        return hasProperty(Property.FUEL);
+    }
+
+    private boolean checkFuel() {
         // this function is not implemented in some older versions, so we need this here...
         switch (this) {
             case ACACIA_BOAT:
@@ -2337,6 +2503,10 @@ public enum CompatibleMaterial {
      * Check if the material is air
      */
     public boolean isAir() {
+        return hasProperty(Property.AIR);
+    }
+
+    private boolean checkAir() {
         switch (this) {
             case AIR:
             case CAVE_AIR:
@@ -2378,20 +2548,24 @@ public enum CompatibleMaterial {
      * Check if the material is a block and completely blocks vision
      */
     public boolean isOccluding() {
-        return material != null && material.isOccluding();
+        return hasProperty(Property.OCCLUDING);
     }
 
     /**
      * @return True if this material is affected by gravity.
      */
     public boolean hasGravity() {
-        return material != null && material.hasGravity();
+        return hasProperty(Property.GRAVITY);
     }
 
     /**
      * Checks if this Material is an obtainable item.
      */
     public boolean isItem() {
+        return hasProperty(Property.ITEM);
+    }
+
+    private boolean checkItem() {
         // this function is not implemented in some older versions, so we need this here...
         switch (this) {
             case ACACIA_WALL_SIGN:
@@ -2534,6 +2708,10 @@ public enum CompatibleMaterial {
      * additional interact handling is performed for the material.
      */
     public boolean isInteractable() {
+        return hasProperty(Property.INTERACTABLE);
+    }
+
+    private boolean checkInteractable() {
         // this function is not implemented in some older versions, so we need this here...
         switch (this) {
             case ACACIA_BUTTON:
@@ -2813,6 +2991,10 @@ public enum CompatibleMaterial {
      * @return true if this material is valid as an item
      */
     public boolean isValidItem() {
+        return hasProperty(Property.VALID_ITEM);
+    }
+
+    private boolean checkValidItem() {
         switch (this) {
             case ACACIA_WALL_SIGN:
             case AIR:
@@ -2937,6 +3119,10 @@ public enum CompatibleMaterial {
      * @return true if this material is a valid brewing stand ingredient
      */
     public boolean isBrewingStandIngredient() {
+        return hasProperty(Property.BREWING_STAND_INGREDIENT);
+    }
+
+    private boolean checkBrewingStandIngredient() {
         switch (this) {
             case NETHER_WART:
             case REDSTONE:
@@ -2965,6 +3151,10 @@ public enum CompatibleMaterial {
      * @return true if this material is food that can be cooked and is in its cooked state
      */
     public boolean isCooked() {
+        return hasProperty(Property.COOKED);
+    }
+
+    private boolean checkCooked() {
         switch (this) {
             case BAKED_POTATO:
             case COOKED_BEEF:
@@ -2985,6 +3175,10 @@ public enum CompatibleMaterial {
      * @return true if this material is food that can be cooked and is in its raw state
      */
     public boolean isRaw() {
+        return hasProperty(Property.RAW);
+    }
+
+    private boolean checkRaw() {
         switch (this) {
             case BEEF:
             case CHICKEN:
@@ -3005,6 +3199,10 @@ public enum CompatibleMaterial {
      * @return true if this material is two blocks tall
      */
     public boolean isTall() {
+        return hasProperty(Property.TALL);
+    }
+
+    private boolean checkTall() {
         switch (this) {
             case SUNFLOWER:
             case LILAC:
@@ -3025,6 +3223,10 @@ public enum CompatibleMaterial {
      * @return true if this is a block that has a growth state
      */
     public boolean isCrop() {
+        return hasProperty(Property.CROP);
+    }
+
+    private boolean checkCrop() {
         switch (this) {
             case BEETROOTS:
             case CACTUS:
@@ -3108,6 +3310,52 @@ public enum CompatibleMaterial {
         }
     }
 
+    /**
+     * Check if this material has a property. This is a single bit test.
+     *
+     * @param property the property to check
+     *
+     * @return true if this material has the property
+     */
+    public boolean hasProperty(Property property) {
+        return PropertyTable.bits[property.ordinal()].get(ordinal());
+    }
+
+    /**
+     * @param property the property to get the materials of
+     *
+     * @return a copy of the bits set for all materials having the property, indexed by their ordinal
+     */
+    public static BitSet getPropertyBits(Property property) {
+        return (BitSet) PropertyTable.bits[property.ordinal()].clone();
+    }
+
+    /**
+     * Get all materials having every given property,
+     * e.g. {@code getMaterials(Property.FUEL, Property.BLOCK)} for all fuels that can be placed.
+     *
+     * @param properties the properties the materials need to have
+     *
+     * @return the materials having all properties
+     */
+    public static Set<CompatibleMaterial> getMaterials(Property... properties) {
+        CompatibleMaterial[] materials = values();
+
+        BitSet bits = new BitSet(materials.length);
+        bits.set(0, materials.length);
+
+        for (Property property : properties) {
+            bits.and(PropertyTable.bits[property.ordinal()]);
+        }
+
+        Set<CompatibleMaterial> result = EnumSet.noneOf(CompatibleMaterial.class);
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            result.add(materials[i]);
+        }
+
+        return result;
+    }
+
     public static CompatibleMaterial getSpawnEgg(EntityType type) {
         if (type == EntityType.MUSHROOM_COW) {
             return MOOSHROOM_SPAWN_EGG;
@@ -3117,7 +3365,7 @@ public enum CompatibleMaterial {
             return ZOMBIE_PIGMAN_SPAWN_EGG;
         }
 
-        return lookupMap.get(type.name() + "_SPAWN_EGG");
+        return Lookups.lookupMap.get(type.name() + "_SPAWN_EGG");
     }
 
     public static CompatibleMaterial getGlassPaneColor(int color) {
@@ -3275,4 +3523,36 @@ public enum CompatibleMaterial {
                 return WHITE_DYE;
         }
     }
+
+    /**
+     * Properties of materials on the current server, evaluated once for every material when a property is first checked
+     *
+     * @see #hasProperty(Property)
+     * @see #getMaterials(Property...)
+     */
+    public enum Property {
+        AIR(CompatibleMaterial::checkAir),
+        BLOCK(m -> m.getMaterial() != null && m.getMaterial().isBlock()),
+        BREWING_STAND_INGREDIENT(CompatibleMaterial::checkBrewingStandIngredient),
+        BURNABLE(m -> m.getMaterial() != null && m.getMaterial().isBurnable()),
+        COOKED(CompatibleMaterial::checkCooked),
+        CROP(CompatibleMaterial::checkCrop),
+        EDIBLE(m -> m.getMaterial() != null && m.getMaterial().isEdible()),
+        FLAMMABLE(m -> m.getMaterial() != null && m.getMaterial().isFlammable()),
+        FUEL(CompatibleMaterial::checkFuel),
+        GRAVITY(m -> m.getMaterial() != null && m.getMaterial().hasGravity()),
+        INTERACTABLE(CompatibleMaterial::checkInteractable),
+        ITEM(CompatibleMaterial::checkItem),
+        OCCLUDING(m -> m.getMaterial() != null && m.getMaterial().isOccluding()),
+        RAW(CompatibleMaterial::checkRaw),
+        SOLID(m -> m.getMaterial() != null && m.getMaterial().isSolid()),
+        TALL(CompatibleMaterial::checkTall),
+        VALID_ITEM(CompatibleMaterial::checkValidItem);
+
+        private final Predicate<CompatibleMaterial> check;
+
+        Property(Predicate<CompatibleMaterial> check) {
+            this.check = check;
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.songoda.core;
 
 import com.songoda.core.configuration.Config;
+import com.songoda.core.configuration.SaveScheduler;
 import com.songoda.core.database.DataManagerAbstract;
+import com.songoda.core.gui.CustomizableGui;
 import com.songoda.core.locale.Locale;
 import com.songoda.core.utils.Metrics;
 import de.tr7zw.changeme.nbtapi.utils.MinecraftVersion;
@@ -142,6 +144,12 @@ public abstract class SongodaPlugin extends JavaPlugin {
 
         onPluginDisable();
 
+        // write any config or data store changes that are still waiting for their autosave and stop the save threads
+        SaveScheduler.getInstance().shutdown();
+
+        // stop watching the GUI layout files, the watchers would keep this plugin loaded
+        CustomizableGui.unloadLayouts(this);
+
         console.sendMessage(ChatColor.GREEN + "=============================");
         console.sendMessage(" "); // blank line to separate chatter
     }
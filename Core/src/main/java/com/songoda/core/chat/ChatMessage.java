@@ -2,10 +2,12 @@ package com.songoda.core.chat;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.songoda.core.compatibility.ClassMapping;
 import com.songoda.core.compatibility.ServerVersion;
 import com.songoda.core.nms.NmsManager;
+import com.songoda.core.nms.entity.NMSPlayer;
 import com.songoda.core.utils.TextUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
@@ -16,79 +18,121 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ChatMessage {
     private static final Gson gson = new GsonBuilder().create();
-    private final List<JsonObject> textList = new ArrayList<>();
+    /**
+     * {@link TextSegment}s for plain text and {@link JsonObject}s for text with hover or click events
+     */
+    private final List<Object> textList = new ArrayList<>();
+    /**
+     * the serialized message and its last built NMS component, dropped whenever the message is changed
+     */
+    private volatile String json;
+    private volatile CachedComponent cachedComponent;
 
     public void clear() {
         textList.clear();
+        changed();
+    }
+
+    private void changed() {
+        json = null;
+        cachedComponent = null;
     }
 
     public ChatMessage fromText(String text) {
         return fromText(text, false);
     }
 
+    /**
+     * Parses legacy text with {@code &} color and format codes and {@code #RRGGBB} or {@code &#RRGGBB} hex colors
+     * in a single pass. A color resets the formats, formats add up until the next color.
+     *
+     * @param text  the text to parse
+     * @param noHex true to replace hex colors with the closest legacy color
+     *
+     * @return this message
+     */
     public ChatMessage fromText(String text, boolean noHex) {
-        Pattern pattern = Pattern.compile(
-                "(.*?)(?!&([omnlk]))(?=(&([123456789abcdefr#])|$)|#([a-f]|[A-F]|[0-9]){6})",
-                Pattern.CASE_INSENSITIVE);
-        Matcher matcher = pattern.matcher(text);
+        StringBuilder segment = new StringBuilder(text.length());
+        ColorContainer color = null;
+        EnumSet<ColorCode> formats = EnumSet.noneOf(ColorCode.class);
+
+        int length = text.length();
+        for (int i = 0; i < length; ++i) {
+            char c = text.charAt(i);
+
+            int hexStart = -1;
+            if (c == '#') {
+                hexStart = i + 1;
+            } else if (c == '&' && i + 1 < length && text.charAt(i + 1) == '#') {
+                hexStart = i + 2;
+            }
+
+            if (hexStart != -1 && isHexColor(text, hexStart)) {
+                addSegment(segment, color, formats);
 
-        while (matcher.find()) {
-            ColorContainer color = null;
-            String match1 = matcher.group(1);
+                color = new ColorContainer(text.substring(hexStart, hexStart + 6), noHex);
+                formats.clear();
 
-            if (matcher.groupCount() == 0 || match1.length() == 0) {
+                i = hexStart + 5;
                 continue;
             }
 
-            char colorChar = '-';
+            if (c == '&' && i + 1 < length) {
+                ColorCode code = ColorCode.getByChar(Character.toLowerCase(text.charAt(i + 1)));
 
-            if (matcher.start() != 0) {
-                colorChar = text.substring(matcher.start() - 1, matcher.start()).charAt(0);
-            }
+                if (code != null) {
+                    addSegment(segment, color, formats);
+
+                    if (code.isColor() || code == ColorCode.RESET) {
+                        color = new ColorContainer(code);
+                        formats.clear();
+                    } else {
+                        formats.add(code);
+                    }
 
-            if (colorChar != '-') {
-                if (colorChar == '#') {
-                    color = new ColorContainer(match1.substring(0, 6), noHex);
-                    match1 = match1.substring(5);
-                } else if (colorChar == '&') {
-                    color = new ColorContainer(ColorCode.getByChar(Character.toLowerCase(match1.charAt(0))));
+                    ++i;
+                    continue;
                 }
             }
 
-            Pattern subPattern = Pattern.compile("(.*?)(?=&([omnlk])|$)");
-            Matcher subMatcher = subPattern.matcher(match1);
-
-            List<ColorCode> stackedCodes = new ArrayList<>();
-            while (subMatcher.find()) {
-                String match2 = subMatcher.group(1);
-                if (match2.length() == 0) continue;
+            segment.append(c);
+        }
 
-                ColorCode code = ColorCode.getByChar(Character.toLowerCase(match2.charAt(0)));
+        addSegment(segment, color, formats);
 
-                if (code != null && code != ColorCode.RESET) {
-                    stackedCodes.add(code);
-                }
+        return this;
+    }
 
-                if (color != null) {
-                    match2 = match2.substring(1);
-                }
+    private static boolean isHexColor(String text, int start) {
+        if (start + 6 > text.length()) {
+            return false;
+        }
 
-                if (match2.length() != 0) {
-                    addMessage(match2, color, stackedCodes);
-                }
+        for (int i = start; i < start + 6; ++i) {
+            if (Character.digit(text.charAt(i), 16) == -1) {
+                return false;
             }
         }
 
-        return this;
+        return true;
+    }
+
+    private void addSegment(StringBuilder segment, ColorContainer color, EnumSet<ColorCode> formats) {
+        if (segment.length() != 0) {
+            textList.add(new TextSegment(segment.toString(), color, EnumSet.copyOf(formats)));
+            changed();
+
+            segment.setLength(0);
+        }
     }
 
     public String toText() {
@@ -98,7 +142,14 @@ public class ChatMessage {
     public String toText(boolean noHex) {
         StringBuilder text = new StringBuilder();
 
-        for (JsonObject object : textList) {
+        for (Object element : textList) {
+            if (element instanceof TextSegment) {
+                ((TextSegment) element).appendText(text, noHex);
+                continue;
+            }
+
+            JsonObject object = (JsonObject) element;
+
             if (object.has("color")) {
                 String color = object.get("color").getAsString();
                 text.append("&");
@@ -126,10 +177,8 @@ public class ChatMessage {
     }
 
     public ChatMessage addMessage(String s) {
-        JsonObject txt = new JsonObject();
-        txt.addProperty("text", s);
-
-        textList.add(txt);
+        textList.add(new TextSegment(s, null, null));
+        changed();
 
         return this;
     }
@@ -139,20 +188,17 @@ public class ChatMessage {
     }
 
     public ChatMessage addMessage(String text, ColorContainer color, List<ColorCode> colorCodes) {
-        JsonObject txt = new JsonObject();
-        txt.addProperty("text", text);
+        EnumSet<ColorCode> formats = EnumSet.noneOf(ColorCode.class);
 
-        if (color != null) {
-            txt.addProperty("color", color.getHexCode() != null ? "#" + color.getHexCode() : color.getColorCode().name().toLowerCase());
-        }
-
-        for (ColorCode code : ColorCode.values()) {
+        for (ColorCode code : colorCodes) {
             if (!code.isColor()) {
-                txt.addProperty(code.name().toLowerCase(), colorCodes.contains(code));
+                formats.add(code);
             }
         }
 
-        textList.add(txt);
+        textList.add(new TextSegment(text, color, formats));
+        changed();
+
         return this;
     }
 
@@ -171,6 +217,7 @@ public class ChatMessage {
         txt.add("clickEvent", click);
 
         textList.add(txt);
+        changed();
         return this;
     }
 
@@ -189,6 +236,7 @@ public class ChatMessage {
         txt.add("clickEvent", click);
 
         textList.add(txt);
+        changed();
         return this;
     }
 
@@ -207,12 +255,25 @@ public class ChatMessage {
         txt.add("clickEvent", hover);
 
         textList.add(txt);
+        changed();
         return this;
     }
 
     @Override
     public String toString() {
-        return gson.toJson(textList);
+        String result = json;
+
+        if (result == null) {
+            JsonArray array = new JsonArray();
+
+            for (Object element : textList) {
+                array.add(element instanceof TextSegment ? ((TextSegment) element).toJson() : (JsonObject) element);
+            }
+
+            json = result = gson.toJson(array);
+        }
+
+        return result;
     }
 
     public void sendTo(CommandSender sender) {
@@ -220,33 +281,112 @@ public class ChatMessage {
     }
 
     public void sendTo(ChatMessage prefix, CommandSender sender) {
-        if (sender instanceof Player && enabled) {
-            try {
-                List<JsonObject> textList = prefix == null ? new ArrayList<>() : new ArrayList<>(prefix.textList);
-                textList.addAll(this.textList);
+        sendTo(prefix, Collections.singletonList(sender));
+    }
 
-                Object packet;
-                if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_19)) {
-                    packet = mc_PacketPlayOutChat_new.newInstance(mc_IChatBaseComponent_ChatSerializer_a.invoke(null, gson.toJson(textList)), mc_PacketPlayOutChat_new_1_19_0 ? 1 : true);
-                }else if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_16)) {
-                    packet = mc_PacketPlayOutChat_new.newInstance(
-                            mc_IChatBaseComponent_ChatSerializer_a.invoke(null, gson.toJson(textList)),
-                            mc_chatMessageType_Chat.get(null),
-                            ((Player) sender).getUniqueId());
-                } else {
-                    packet = mc_PacketPlayOutChat_new.newInstance(mc_IChatBaseComponent_ChatSerializer_a.invoke(null, gson.toJson(textList)));
+    /**
+     * Send this message to multiple recipients. <br>
+     * The message is serialized and converted into a chat component only once,
+     * and the same packet is sent to every player where possible.
+     *
+     * @param recipients the players and other command senders to send the message to
+     */
+    public void sendTo(Collection<? extends CommandSender> recipients) {
+        sendTo(null, recipients);
+    }
+
+    /**
+     * Send this message with a prefix to multiple recipients. <br>
+     * The message is serialized and converted into a chat component only once,
+     * and the same packet is sent to every player where possible.
+     *
+     * @param prefix     the prefix to send in front of the message
+     * @param recipients the players and other command senders to send the message to
+     */
+    public void sendTo(ChatMessage prefix, Collection<? extends CommandSender> recipients) {
+        NMSPlayer nmsPlayer = NmsManager.getPlayer();
+        String legacyText = null;
+        Object component = null;
+        Object packet = null;
+
+        for (CommandSender sender : recipients) {
+            if (sender instanceof Player && enabled) {
+                try {
+                    if (component == null) {
+                        component = getComponent(prefix);
+                    }
+
+                    if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_19)) {
+                        if (packet == null) {
+                            packet = mc_PacketPlayOutChat_new.newInstance(component, mc_PacketPlayOutChat_new_1_19_0 ? 1 : true);
+                        }
+                    } else if (ServerVersion.isServerVersionAtLeast(ServerVersion.V1_16)) {
+                        // the packet holds the uuid of the receiving player
+                        packet = mc_PacketPlayOutChat_new.newInstance(component, mc_chatMessageType_Chat.get(null), ((Player) sender).getUniqueId());
+                    } else if (packet == null) {
+                        packet = mc_PacketPlayOutChat_new.newInstance(component);
+                    }
+
+                    nmsPlayer.sendPacket((Player) sender, packet);
+
+                    continue;
+                } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+                    Bukkit.getLogger().log(Level.WARNING, "Problem preparing raw chat packets (disabling further packets)", ex);
+                    enabled = false;
                 }
+            }
 
-                NmsManager.getPlayer().sendPacket((Player) sender, packet);
-            } catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                Bukkit.getLogger().log(Level.WARNING, "Problem preparing raw chat packets (disabling further packets)", ex);
-                enabled = false;
+            if (legacyText == null) {
+                legacyText = TextUtils.formatText((prefix == null ? "" : prefix.toText(true) + " ") + toText(true));
             }
 
-            return;
+            sender.sendMessage(legacyText);
+        }
+    }
+
+    /**
+     * @return the NMS chat component of the prefix followed by this message, reused until either of them is changed
+     */
+    private Object getComponent(ChatMessage prefix) throws IllegalAccessException, InvocationTargetException {
+        String prefixJson = prefix == null ? null : prefix.toString();
+        CachedComponent cached = cachedComponent;
+
+        // the json of the prefix is a new instance whenever the prefix has been changed
+        if (cached != null && cached.prefix == prefix && cached.prefixJson == prefixJson) {
+            return cached.component;
+        }
+
+        Object component = mc_IChatBaseComponent_ChatSerializer_a.invoke(null, joinJson(prefixJson, toString()));
+        cachedComponent = new CachedComponent(prefix, prefixJson, component);
+
+        return component;
+    }
+
+    /**
+     * Joins two serialized text lists without deserializing them
+     */
+    private static String joinJson(String prefixJson, String json) {
+        if (prefixJson == null || prefixJson.length() <= 2) {
+            return json;
         }
 
-        sender.sendMessage(TextUtils.formatText((prefix == null ? "" : prefix.toText(true) + " ") + toText(true)));
+        if (json.length() <= 2) {
+            return prefixJson;
+        }
+
+        return prefixJson.substring(0, prefixJson.length() - 1) + "," + json.substring(1);
+    }
+
+    private static class CachedComponent {
+        private final ChatMessage prefix;
+        private final String prefixJson;
+        private final Object component;
+
+        private CachedComponent(ChatMessage prefix, String prefixJson, Object component) {
+            this.prefix = prefix;
+            this.prefixJson = prefixJson;
+            this.component = component;
+        }
     }
 
     private static boolean enabled = ServerVersion.isServerVersionAtLeast(ServerVersion.V1_8);
@@ -299,13 +439,133 @@ public class ChatMessage {
     }
 
     public ChatMessage replaceAll(String toReplace, String replaceWith) {
-        for (JsonObject object : textList) {
+        for (Object element : textList) {
+            if (element instanceof TextSegment) {
+                TextSegment segment = (TextSegment) element;
+                segment.text = segment.text.replaceAll(toReplace, replaceWith);
+
+                continue;
+            }
+
+            JsonObject object = (JsonObject) element;
             String text = object.get("text").getAsString().replaceAll(toReplace, replaceWith);
 
             object.remove("text");
             object.addProperty("text", text);
         }
 
+        changed();
+
         return this;
     }
+
+    /**
+     * Creates a copy of this message in which every occurrence of a marker is replaced with the next value. <br>
+     * The values are inserted as literal text, color and format codes in them are not parsed.
+     * This makes it safe to insert untrusted text, like player names or chat messages, into a parsed message.
+     *
+     * @param marker the character to replace
+     * @param values the values in the order of the markers, null values are replaced with an empty string
+     *
+     * @return the copy of this message
+     */
+    public ChatMessage replaceMarkers(char marker, String[] values) {
+        ChatMessage result = new ChatMessage();
+        int[] nextValue = {0};
+
+        for (Object element : textList) {
+            if (element instanceof TextSegment) {
+                TextSegment segment = (TextSegment) element;
+                result.textList.add(new TextSegment(replaceMarkers(segment.text, marker, values, nextValue), segment.color, segment.formats));
+
+                continue;
+            }
+
+            JsonObject object = gson.fromJson((JsonObject) element, JsonObject.class);
+            String text = replaceMarkers(object.get("text").getAsString(), marker, values, nextValue);
+
+            object.remove("text");
+            object.addProperty("text", text);
+            result.textList.add(object);
+        }
+
+        return result;
+    }
+
+    private static String replaceMarkers(String text, char marker, String[] values, int[] nextValue) {
+        if (text.indexOf(marker) == -1) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length() + 16);
+
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+
+            if (c != marker || nextValue[0] >= values.length) {
+                result.append(c);
+                continue;
+            }
+
+            String value = values[nextValue[0]++];
+
+            if (value != null) {
+                result.append(value);
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Plain text with its color and formats, only converted into json when the message is serialized
+     */
+    private static class TextSegment {
+        private String text;
+        private final ColorContainer color;
+        /**
+         * the enabled formats, null to not write any format properties
+         */
+        private final EnumSet<ColorCode> formats;
+
+        private TextSegment(String text, ColorContainer color, EnumSet<ColorCode> formats) {
+            this.text = text;
+            this.color = color;
+            this.formats = formats;
+        }
+
+        private JsonObject toJson() {
+            JsonObject txt = new JsonObject();
+            txt.addProperty("text", text);
+
+            if (color != null) {
+                txt.addProperty("color", color.getHexCode() != null ? "#" + color.getHexCode() : color.getColorCode().name().toLowerCase());
+            }
+
+            if (formats != null) {
+                for (ColorCode code : ColorCode.values()) {
+                    if (!code.isColor()) {
+                        txt.addProperty(code.name().toLowerCase(), formats.contains(code));
+                    }
+                }
+            }
+
+            return txt;
+        }
+
+        private void appendText(StringBuilder result, boolean noHex) {
+            if (color != null) {
+                ColorCode colorCode = color.getHexCode() != null ? new ColorContainer(color.getHexCode(), noHex).getColor() : color.getColorCode();
+                result.append('&').append(colorCode.getCode());
+            }
+
+            if (formats != null) {
+                for (ColorCode code : formats) {
+                    result.append('&').append(code.getCode());
+                }
+            }
+
+            result.append(text);
+        }
+    }
 }
@@ -0,0 +1,454 @@
+package com.songoda.core.configuration;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary storage of {@link SimpleDataStore} entries, made of a snapshot holding every entry
+ * and a journal that changed and removed entries are appended to.
+ * <br>
+ * Every record is stored with its length and checksum. A partially written record at the end of the journal
+ * (e.g. after a crash) is ignored and cut off when the journal is read.
+ * The journal is tied to the generation of its snapshot, so a journal left behind by an interrupted
+ * compaction is never replayed on top of the newer snapshot.
+ * Values that are not a string, number, boolean, list or section are stored as YAML.
+ */
+class BinaryDataStore {
+    static final byte OP_PUT = 1;
+    static final byte OP_REMOVE = 2;
+
+    private static final int SNAPSHOT_MAGIC = 0x53445331; // SDS1
+    private static final int JOURNAL_MAGIC = 0x53444A31; // SDJ1
+    private static final int JOURNAL_HEADER_SIZE = 12;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_LIST = 6;
+    private static final byte TYPE_SECTION = 7;
+    private static final byte TYPE_FLOAT = 8;
+    private static final byte TYPE_YAML = 9;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private long generation;
+    private int journalRecords;
+
+    BinaryDataStore(@NotNull File snapshotFile, @NotNull File journalFile) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+    }
+
+    boolean exists() {
+        return snapshotFile.exists() || journalFile.exists();
+    }
+
+    /**
+     * @return the number of records appended to the journal since the last snapshot
+     */
+    int getJournalRecords() {
+        return journalRecords;
+    }
+
+    /**
+     * Reads the snapshot and replays the journal on top of it
+     *
+     * @return the sections of all stored entries by their config key
+     */
+    @NotNull
+    Map<String, ConfigurationSection> read() throws IOException {
+        Map<String, ConfigurationSection> entries = new LinkedHashMap<>();
+        generation = 0;
+
+        if (snapshotFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a data store snapshot: " + snapshotFile.getName());
+                }
+
+                generation = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; ++i) {
+                    byte[] record = readRecord(in);
+
+                    if (record == null) {
+                        throw new IOException("Data store snapshot " + snapshotFile.getName() + " is corrupted");
+                    }
+
+                    applyRecord(record, entries);
+                }
+            }
+        }
+
+        journalRecords = 0;
+
+        if (journalFile.exists()) {
+            long validLength = 0;
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+                if (journalFile.length() >= JOURNAL_HEADER_SIZE) {
+                    if (in.readInt() != JOURNAL_MAGIC) {
+                        throw new IOException("Not a data store journal: " + journalFile.getName());
+                    }
+
+                    // otherwise the journal belongs to an older snapshot and is already part of this one
+                    validLength = in.readLong() == generation ? JOURNAL_HEADER_SIZE : 0;
+                }
+
+                if (validLength != 0) {
+                    byte[] record;
+                    while ((record = readRecord(in)) != null) {
+                        applyRecord(record, entries);
+
+                        validLength += 8 + record.length;
+                        ++journalRecords;
+                    }
+                }
+            }
+
+            if (validLength < journalFile.length()) {
+                // drop the torn record, so appended records stay readable
+                try (RandomAccessFile file = new RandomAccessFile(journalFile, "rw")) {
+                    file.setLength(validLength);
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Appends records to the journal and syncs it to disk
+     */
+    void append(@NotNull List<byte[]> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        File parent = journalFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        boolean newJournal = !journalFile.exists() || journalFile.length() == 0;
+
+        try (FileOutputStream stream = new FileOutputStream(journalFile, true);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            if (newJournal) {
+                out.writeInt(JOURNAL_MAGIC);
+                out.writeLong(generation);
+            }
+
+            for (byte[] record : records) {
+                writeRecord(out, record);
+            }
+
+            out.flush();
+            stream.getFD().sync();
+        }
+
+        journalRecords += records.size();
+    }
+
+    /**
+     * Replaces the snapshot with the given records and empties the journal
+     *
+     * @param records put records of every entry in the store
+     */
+    void writeSnapshot(@NotNull List<byte[]> records) throws IOException {
+        File absoluteFile = snapshotFile.getAbsoluteFile();
+        if (absoluteFile.getParentFile() != null && !absoluteFile.getParentFile().exists()) {
+            absoluteFile.getParentFile().mkdirs();
+        }
+
+        File tempFile = new File(absoluteFile.getParentFile(), absoluteFile.getName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tempFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(generation + 1);
+            out.writeInt(records.size());
+
+            for (byte[] record : records) {
+                writeRecord(out, record);
+            }
+
+            out.flush();
+            stream.getFD().sync();
+        } catch (IOException ex) {
+            tempFile.delete();
+            throw ex;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tempFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        // everything in the journal is part of the new snapshot now
+        ++generation;
+        Files.deleteIfExists(journalFile.toPath());
+        journalRecords = 0;
+    }
+
+    /**
+     * @param configKey the config key of the entry
+     * @param section   the section the entry has been saved to
+     *
+     * @return a record storing the entry
+     */
+    @NotNull
+    static byte[] encodePut(@NotNull String configKey, @NotNull ConfigurationSection section) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(OP_PUT);
+        writeString(out, configKey);
+        writeMap(out, section.getValues(false));
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param configKey the config key of the entry
+     *
+     * @return a record removing the entry
+     */
+    @NotNull
+    static byte[] encodeRemove(@NotNull String configKey) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(OP_REMOVE);
+        writeString(out, configKey);
+
+        return bytes.toByteArray();
+    }
+
+    private static void applyRecord(byte[] record, Map<String, ConfigurationSection> entries) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+
+        byte op = in.readByte();
+        String configKey = readString(in);
+
+        if (op == OP_REMOVE) {
+            entries.remove(configKey);
+            return;
+        }
+
+        if (op != OP_PUT) {
+            throw new IOException("Unknown data store record type " + op);
+        }
+
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.options().pathSeparator('\0');
+
+        ConfigurationSection section = config.createSection(configKey);
+        readSection(in, section);
+
+        // re-insert to keep the order of the last change
+        entries.remove(configKey);
+        entries.put(configKey, section);
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+
+        out.writeInt(record.length);
+        out.writeInt((int) crc.getValue());
+        out.write(record);
+    }
+
+    /**
+     * @return the record, or null if the end of the stream has been reached or the record is incomplete or corrupted
+     */
+    @Nullable
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+
+            if (length < 0 || length > MAX_RECORD_SIZE) {
+                return null;
+            }
+
+            byte[] record = new byte[length];
+            in.readFully(record);
+
+            CRC32 crc = new CRC32();
+            crc.update(record);
+
+            return (int) crc.getValue() == checksum ? record : null;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        out.writeInt(map.size());
+
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, String.valueOf(entry.getKey()));
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TYPE_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+
+            out.writeByte(TYPE_LIST);
+            out.writeInt(list.size());
+
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof ConfigurationSection) {
+            out.writeByte(TYPE_SECTION);
+            writeMap(out, ((ConfigurationSection) value).getValues(false));
+        } else if (value instanceof Map) {
+            out.writeByte(TYPE_SECTION);
+            writeMap(out, (Map<?, ?>) value);
+        } else {
+            // ConfigurationSerializable and everything else Bukkit knows how to represent
+            YamlConfiguration yaml = new YamlConfiguration();
+            yaml.set("v", value);
+
+            out.writeByte(TYPE_YAML);
+            writeString(out, yaml.saveToString());
+        }
+    }
+
+    private static void readSection(DataInputStream in, ConfigurationSection section) throws IOException {
+        int size = in.readInt();
+
+        for (int i = 0; i < size; ++i) {
+            String key = readString(in);
+            byte type = in.readByte();
+
+            if (type == TYPE_SECTION) {
+                readSection(in, section.createSection(key));
+            } else {
+                section.set(key, readValue(in, type));
+            }
+        }
+    }
+
+    private static Object readValue(DataInputStream in, byte type) throws IOException {
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_INT:
+                return in.readInt();
+            case TYPE_LONG:
+                return in.readLong();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+
+                for (int i = 0; i < size; ++i) {
+                    list.add(readValue(in, in.readByte()));
+                }
+
+                return list;
+            }
+            case TYPE_SECTION: {
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>();
+
+                for (int i = 0; i < size; ++i) {
+                    String key = readString(in);
+                    map.put(key, readValue(in, in.readByte()));
+                }
+
+                return map;
+            }
+            case TYPE_YAML: {
+                YamlConfiguration yaml = new YamlConfiguration();
+
+                try {
+                    yaml.loadFromString(readString(in));
+                } catch (InvalidConfigurationException ex) {
+                    throw new IOException("Failed to read stored value", ex);
+                }
+
+                return yaml.get("v");
+            }
+            default:
+                throw new IOException("Unknown data store value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -16,6 +16,7 @@ import org.yaml.snakeyaml.representer.Representer;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -28,14 +29,17 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -68,8 +72,6 @@ public class Config extends ConfigSection {
     final Representer yamlRepresenter = new YamlRepresenter();
     final Yaml yaml = new Yaml(new YamlConstructor(), yamlRepresenter, yamlOptions);
     Charset defaultCharset = StandardCharsets.UTF_8;
-    SaveTask saveTask;
-    Timer autosaveTimer;
 
     ////////////// Config settings ////////////////
     /**
@@ -92,6 +94,17 @@ public class Config extends ConfigSection {
      */
     boolean loadComments = true;
 
+    /**
+     * keep the serialized yaml of unchanged root nodes between saves
+     */
+    boolean incrementalSave = false;
+
+    /**
+     * serialized yaml of root nodes that have not changed since the last save, guarded by lock
+     */
+    final Map<String, String> saveFragments = new HashMap<>();
+    int saveFragmentsIndent = -1;
+
     /**
      * Default comment applied to config nodes
      */
@@ -225,6 +238,33 @@ public class Config extends ConfigSection {
         return this;
     }
 
+    public boolean getIncrementalSave() {
+        return incrementalSave;
+    }
+
+    /**
+     * Should the serialized yaml of root nodes be kept between saves? <br>
+     * If enabled, only root nodes that have been changed through this config are serialized again on save,
+     * at the cost of keeping a copy of the serialized config in memory. <br>
+     * Values that are modified in place (e.g. adding to a list without setting it again) are not detected.
+     *
+     * @param incrementalSave set to true to keep unchanged nodes serialized
+     *
+     * @return this class
+     */
+    @NotNull
+    public Config setIncrementalSave(boolean incrementalSave) {
+        this.incrementalSave = incrementalSave;
+
+        if (!incrementalSave) {
+            synchronized (lock) {
+                saveFragments.clear();
+            }
+        }
+
+        return this;
+    }
+
     public int getAutosaveInterval() {
         return autosaveInterval;
     }
@@ -393,20 +433,24 @@ public class Config extends ConfigSection {
     }
 
     public Config clearConfig(boolean clearDefaults) {
-        root.values.clear();
-        root.configComments.clear();
+        synchronized (root.lock) {
+            root.values.clear();
+            root.configComments.clear();
 
-        if (clearDefaults) {
-            root.defaultComments.clear();
-            root.defaults.clear();
+            if (clearDefaults) {
+                root.defaultComments.clear();
+                root.defaults.clear();
+            }
         }
 
         return this;
     }
 
     public Config clearDefaults() {
-        root.defaultComments.clear();
-        root.defaults.clear();
+        synchronized (root.lock) {
+            root.defaultComments.clear();
+            root.defaults.clear();
+        }
 
         return this;
     }
@@ -565,9 +609,11 @@ public class Config extends ConfigSection {
         // Delete old config values (thread-safe)
         List<String> defaultKeys = Arrays.asList(defaults.keySet().toArray(new String[0]));
 
-        for (String key : values.keySet().toArray(new String[0])) {
-            if (!defaultKeys.contains(key)) {
-                values.remove(key);
+        synchronized (lock) {
+            for (String key : values.keySet().toArray(new String[0])) {
+                if (!defaultKeys.contains(key)) {
+                    values.remove(key);
+                }
             }
         }
     }
@@ -579,11 +625,31 @@ public class Config extends ConfigSection {
         }
     }
 
+    @Override
+    void onNodeChanged(@Nullable String key) {
+        super.onNodeChanged(key);
+
+        synchronized (lock) {
+            if (saveFragments.isEmpty()) {
+                return;
+            }
+
+            if (key == null) {
+                saveFragments.clear();
+                return;
+            }
+
+            int rootIndex = key.indexOf(pathChar);
+            saveFragments.remove(rootIndex == -1 ? key : key.substring(0, rootIndex));
+        }
+    }
+
     public void delaySave() {
         // save async even if no plugin or if plugin disabled
-        if (saveTask == null && (changed || hasNewDefaults())) {
-            autosaveTimer = new Timer((plugin != null ? plugin.getName() + "-ConfigSave-" : "ConfigSave-") + getFile().getName());
-            autosaveTimer.schedule(saveTask = new SaveTask(), autosaveInterval * 1000L);
+        SaveScheduler scheduler = SaveScheduler.getInstance();
+
+        if (!scheduler.isScheduled(this) && (changed || hasNewDefaults())) {
+            scheduler.schedule(this, SaveScheduler.PRIORITY_NORMAL, autosaveInterval, TimeUnit.SECONDS, this::saveChanges);
         }
     }
 
@@ -594,13 +660,7 @@ public class Config extends ConfigSection {
             saved = save();
         }
 
-        if (saveTask != null) {
-            //Close Threads
-            saveTask.cancel();
-            autosaveTimer.cancel();
-            saveTask = null;
-            autosaveTimer = null;
-        }
+        SaveScheduler.getInstance().cancel(this);
 
         return saved;
     }
@@ -618,13 +678,7 @@ public class Config extends ConfigSection {
     }
 
     public boolean save() {
-        if (saveTask != null) {
-            //Close Threads
-            saveTask.cancel();
-            autosaveTimer.cancel();
-            saveTask = null;
-            autosaveTimer = null;
-        }
+        SaveScheduler.getInstance().cancel(this);
 
         return save(getFile());
     }
@@ -634,17 +688,45 @@ public class Config extends ConfigSection {
         return this.save(new File(file));
     }
 
+    /**
+     * Saves the config to a temporary file first and then replaces the target file with it,
+     * so the previous file stays intact if saving fails.
+     *
+     * @param file the file to save the config to
+     *
+     * @return true if the config has been saved
+     */
     public boolean save(@NotNull File file) {
         Validate.notNull(file, "File cannot be null");
 
-        if (file.getParentFile() != null && !file.getParentFile().exists()) {
-            file.getParentFile().mkdirs();
+        File absoluteFile = file.getAbsoluteFile();
+        if (absoluteFile.getParentFile() != null && !absoluteFile.getParentFile().exists()) {
+            absoluteFile.getParentFile().mkdirs();
         }
 
-        String data = this.saveToString();
-        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(file), defaultCharset)) {
-            writer.write(data);
+        File tempFile = new File(absoluteFile.getParentFile(), absoluteFile.getName() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tempFile);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(stream, defaultCharset))) {
+            saveTo(writer);
+
+            writer.flush();
+            stream.getFD().sync();
+        } catch (Throwable ex) {
+            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, "Error saving config", ex);
+            tempFile.delete();
+            delaySave();
+
+            return false;
+        }
+
+        try {
+            try {
+                Files.move(tempFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException ex) {
+            tempFile.delete();
             return false;
         }
 
@@ -654,50 +736,101 @@ public class Config extends ConfigSection {
     @NotNull
     public String saveToString() {
         try {
-            if (autoremove) {
-                deleteNonDefaultSettings();
-            }
+            StringWriter str = new StringWriter();
+            saveTo(str);
 
-            yamlOptions.setIndent(indentation);
-            yamlOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-            yamlOptions.setSplitLines(false);
-            yamlRepresenter.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+            return str.toString();
+        } catch (Throwable ex) {
+            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, "Error saving config", ex);
+            delaySave();
+        }
 
-            StringWriter str = new StringWriter();
+        return "";
+    }
 
-            if (headerComment != null) {
-                headerComment.writeComment(str, 0, ConfigFormattingRules.CommentStyle.BLOCKED);
-                str.write("\n"); // add one space after the header
-            }
+    /**
+     * Writes the config including its comments to a writer. <br>
+     * Root nodes are serialized and written one after another, so the config is never held in memory as a whole.
+     *
+     * @param out the writer to write the config to
+     */
+    public void saveTo(@NotNull Writer out) throws IOException {
+        if (autoremove) {
+            deleteNonDefaultSettings();
+        }
+
+        yamlOptions.setIndent(indentation);
+        yamlOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        yamlOptions.setSplitLines(false);
+        yamlRepresenter.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+
+        if (headerComment != null) {
+            headerComment.writeComment(out, 0, ConfigFormattingRules.CommentStyle.BLOCKED);
+            out.write("\n"); // add one space after the header
+        }
+
+        boolean firstNode = true;
+        for (Map.Entry<String, Object> entry : this.getValues(false).entrySet()) {
+            writeComments(getSaveFragment(entry.getKey(), entry.getValue()), out, firstNode);
+            firstNode = false;
+        }
 
-            String dump = yaml.dump(this.getValues(false));
-            if (!dump.equals(BLANK_CONFIG)) {
-                writeComments(dump, str);
+        if (footerComment != null) {
+            out.write("\n");
+            footerComment.writeComment(out, 0, ConfigFormattingRules.CommentStyle.BLOCKED);
+        }
+    }
+
+    /**
+     * @return the serialized yaml of a single root node
+     */
+    private String getSaveFragment(String key, Object value) {
+        if (!incrementalSave) {
+            return yaml.dump(Collections.singletonMap(key, value));
+        }
+
+        long dumpVersion;
+        synchronized (lock) {
+            if (saveFragmentsIndent != indentation) {
+                saveFragments.clear();
+                saveFragmentsIndent = indentation;
             }
 
-            if (footerComment != null) {
-                str.write("\n");
-                footerComment.writeComment(str, 0, ConfigFormattingRules.CommentStyle.BLOCKED);
+            String fragment = saveFragments.get(key);
+            if (fragment != null) {
+                return fragment;
             }
 
-            return str.toString();
-        } catch (Throwable ex) {
-            Logger.getLogger(Config.class.getName()).log(Level.SEVERE, "Error saving config", ex);
-            delaySave();
+            dumpVersion = version;
         }
 
-        return "";
+        String fragment = yaml.dump(Collections.singletonMap(key, value));
+
+        synchronized (lock) {
+            // only keep it if nothing has been changed while serializing
+            if (version == dumpVersion) {
+                saveFragments.put(key, fragment);
+            }
+        }
+
+        return fragment;
     }
 
     protected final Pattern yamlNode = Pattern.compile("^( *)([^:{}\\[\\],&*#?|\\-<>=!%@`]+):(.*)$");
 
     protected void writeComments(String data, Writer out) throws IOException {
+        writeComments(data, out, true);
+    }
+
+    /**
+     * @param firstNode false if root nodes have already been written before this data
+     */
+    protected void writeComments(String data, Writer out, boolean firstNode) throws IOException {
         // line-by-line apply line spacing formatting and comments per-node
         BufferedReader in = new BufferedReader(new StringReader(data));
 
         String line;
         boolean insideScalar = false;
-        boolean firstNode = true;
         int index = 0;
 
         LinkedList<String> currentPath = new LinkedList<>();
@@ -783,11 +916,4 @@ public class Config extends ConfigSection {
 
         return -1;
     }
-
-    class SaveTask extends TimerTask {
-        @Override
-        public void run() {
-            saveChanges();
-        }
-    }
 }
@@ -0,0 +1,139 @@
+package com.songoda.core.configuration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flat map of full node paths to their values that additionally indexes every key by its parent path.
+ * <br>
+ * This allows listing the children of a section without scanning all keys of the config.
+ * The index is only kept up to date through {@link #put(String, Object)}, {@link #putAll(Map)},
+ * {@link #remove(Object)} and {@link #clear()}, so the collection views of this map are read-only.
+ * Every change is reported to {@link ConfigSection#onNodeChanged(String)} of the config root.
+ */
+class ConfigNodeMap extends LinkedHashMap<String, Object> {
+    private final ConfigSection root;
+
+    /**
+     * Parent paths (including the trailing path separator, empty for the root) mapped to the full keys directly below them
+     */
+    private final Map<String, Set<String>> children = new HashMap<>();
+
+    ConfigNodeMap(ConfigSection root) {
+        this.root = root;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object last = super.put(key, value);
+
+        this.children.computeIfAbsent(parentPath(key), k -> new LinkedHashSet<>()).add(key);
+        this.root.onNodeChanged(key);
+
+        return last;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> map) {
+        for (Map.Entry<? extends String, ?> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (!(key instanceof String) || !containsKey(key)) {
+            return null;
+        }
+
+        Object last = super.remove(key);
+
+        String parentPath = parentPath((String) key);
+        Set<String> siblings = this.children.get(parentPath);
+        if (siblings != null) {
+            siblings.remove(key);
+
+            if (siblings.isEmpty()) {
+                this.children.remove(parentPath);
+            }
+        }
+
+        this.root.onNodeChanged((String) key);
+
+        return last;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.children.clear();
+        this.root.onNodeChanged(null);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(super.keySet());
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return Collections.unmodifiableCollection(super.values());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return Collections.unmodifiableSet(super.entrySet());
+    }
+
+    /**
+     * Lists the keys below a path. Costs O(children) instead of O(total keys).
+     *
+     * @param path the full path of the parent section, including the trailing path separator or empty for the root
+     * @param deep true to list all keys below the path, false to only list the direct children
+     *
+     * @return the full keys below the path, parents are listed before their children
+     */
+    List<String> getChildKeys(String path, boolean deep) {
+        List<String> result = new ArrayList<>();
+        collectChildKeys(this.children, this.root.pathChar, path, deep, result);
+
+        return result;
+    }
+
+    /**
+     * @return a copy of the index of the keys below each path, used by {@link ConfigSnapshot}
+     */
+    Map<String, List<String>> copyChildren() {
+        Map<String, List<String>> result = new HashMap<>(this.children.size());
+        this.children.forEach((path, keys) -> result.put(path, new ArrayList<>(keys)));
+
+        return result;
+    }
+
+    static void collectChildKeys(Map<String, ? extends Collection<String>> children, char pathChar, String path, boolean deep, List<String> result) {
+        Collection<String> keys = children.get(path);
+
+        if (keys == null) {
+            return;
+        }
+
+        for (String key : keys) {
+            result.add(key);
+
+            if (deep) {
+                collectChildKeys(children, pathChar, key + pathChar, true, result);
+            }
+        }
+    }
+
+    private String parentPath(String key) {
+        return key.substring(0, key.lastIndexOf(this.root.pathChar) + 1);
+    }
+}
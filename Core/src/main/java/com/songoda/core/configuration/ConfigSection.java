@@ -16,7 +16,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Configuration for a specific node
@@ -29,12 +28,24 @@ public class ConfigSection extends MemoryConfiguration {
     protected char pathChar = '.';
     final HashMap<String, Comment> configComments;
     final HashMap<String, Comment> defaultComments;
-    final LinkedHashMap<String, Object> defaults;
-    final LinkedHashMap<String, Object> values;
+    final ConfigNodeMap defaults;
+    final ConfigNodeMap values;
     /**
      * Internal root state: if any configuration value has changed from file state
      */
     boolean changed = false;
+    /**
+     * Internal root state: incremented on every change to the config nodes
+     */
+    long version = 0;
+    /**
+     * Internal root state: immutable copy of the config nodes, null if outdated
+     */
+    volatile ConfigSnapshot snapshot;
+    /**
+     * Internal root state: if reads should be served from {@link #snapshot}
+     */
+    volatile boolean snapshotReads = false;
     final boolean isDefault;
     final Object lock = new Object();
 
@@ -46,8 +57,8 @@ public class ConfigSection extends MemoryConfiguration {
 
         configComments = new HashMap<>();
         defaultComments = new HashMap<>();
-        defaults = new LinkedHashMap<>();
-        values = new LinkedHashMap<>();
+        defaults = new ConfigNodeMap(this);
+        values = new ConfigNodeMap(this);
     }
 
     ConfigSection(ConfigSection root, ConfigSection parent, String nodeKey, boolean isDefault) {
@@ -75,6 +86,62 @@ public class ConfigSection extends MemoryConfiguration {
         }
     }
 
+    /**
+     * Called by the node maps on every change
+     *
+     * @param key the full key of the changed node or null if all nodes changed
+     */
+    void onNodeChanged(@Nullable String key) {
+        synchronized (root.lock) {
+            ++root.version;
+            root.snapshot = null;
+        }
+    }
+
+    /**
+     * Returns an immutable view of the whole config that can be read from any thread without locking. <br>
+     * The snapshot is only rebuilt on the first call after the config has been changed.
+     * Rebuilding copies the whole config while holding the lock of the writers,
+     * so that call blocks until running writes have finished and blocks new writes until the copy is done.
+     *
+     * @return a snapshot of the current state of the config
+     */
+    @NotNull
+    public ConfigSnapshot getSnapshot() {
+        ConfigSnapshot current = root.snapshot;
+
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (root.lock) {
+            if (root.snapshot == null) {
+                root.snapshot = new ConfigSnapshot(root.version, root.pathChar, root.values, root.defaults);
+            }
+
+            return root.snapshot;
+        }
+    }
+
+    /**
+     * @return true if reads are served from a snapshot
+     */
+    public boolean isSnapshotReads() {
+        return root.snapshotReads;
+    }
+
+    /**
+     * Serve all reads of this config from an immutable snapshot, see {@link #getSnapshot()}. <br>
+     * This makes reading from async threads safe and lock-free,
+     * at the cost of copying the config on the first read after a change. That read blocks while the config is copied.
+     * Recommended for configs that are read a lot but rarely changed.
+     *
+     * @param snapshotReads true to enable snapshot reads
+     */
+    public void setSnapshotReads(boolean snapshotReads) {
+        root.snapshotReads = snapshotReads;
+    }
+
     /**
      * Sets the character used to separate configuration nodes. <br>
      * IMPORTANT: Do not change this after loading or adding ConfigurationSections!
@@ -273,12 +340,12 @@ public class ConfigSection extends MemoryConfiguration {
 
     @Override
     public void setDefaults(Configuration c) {
-        if (fullPath.isEmpty()) {
-            root.defaults.clear();
-        } else {
-            root.defaults.keySet().stream()
-                    .filter(k -> k.startsWith(fullPath))
-                    .forEach(root.defaults::remove);
+        synchronized (root.lock) {
+            if (fullPath.isEmpty()) {
+                root.defaults.clear();
+            } else {
+                root.defaults.getChildKeys(fullPath, true).forEach(root.defaults::remove);
+            }
         }
 
         addDefaults(c);
@@ -305,24 +372,26 @@ public class ConfigSection extends MemoryConfiguration {
         LinkedHashSet<String> result = new LinkedHashSet<>();
         int pathIndex = fullPath.lastIndexOf(root.pathChar);
 
-        if (deep) {
-            result.addAll(root.defaults.keySet().stream()
-                    .filter(k -> k.startsWith(fullPath))
-                    .map(k -> !k.endsWith(String.valueOf(root.pathChar)) ? k.substring(pathIndex + 1) : k.substring(pathIndex + 1, k.length() - 1))
-                    .collect(Collectors.toCollection(LinkedHashSet::new)));
-            result.addAll(root.values.keySet().stream()
-                    .filter(k -> k.startsWith(fullPath))
-                    .map(k -> !k.endsWith(String.valueOf(root.pathChar)) ? k.substring(pathIndex + 1) : k.substring(pathIndex + 1, k.length() - 1))
-                    .collect(Collectors.toCollection(LinkedHashSet::new)));
-        } else {
-            result.addAll(root.defaults.keySet().stream()
-                    .filter(k -> k.startsWith(fullPath) && k.lastIndexOf(root.pathChar) == pathIndex)
-                    .map(k -> !k.endsWith(String.valueOf(root.pathChar)) ? k.substring(pathIndex + 1) : k.substring(pathIndex + 1, k.length() - 1))
-                    .collect(Collectors.toCollection(LinkedHashSet::new)));
-            result.addAll(root.values.keySet().stream()
-                    .filter(k -> k.startsWith(fullPath) && k.lastIndexOf(root.pathChar) == pathIndex)
-                    .map(k -> !k.endsWith(String.valueOf(root.pathChar)) ? k.substring(pathIndex + 1) : k.substring(pathIndex + 1, k.length() - 1))
-                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+        if (root.snapshotReads) {
+            ConfigSnapshot snapshot = getSnapshot();
+
+            for (String key : snapshot.getChildKeys(fullPath, deep, true)) {
+                result.add(getRelativeKey(key, pathIndex));
+            }
+
+            for (String key : snapshot.getChildKeys(fullPath, deep, false)) {
+                result.add(getRelativeKey(key, pathIndex));
+            }
+
+            return result;
+        }
+
+        for (String key : root.defaults.getChildKeys(fullPath, deep)) {
+            result.add(getRelativeKey(key, pathIndex));
+        }
+
+        for (String key : root.values.getChildKeys(fullPath, deep)) {
+            result.add(getRelativeKey(key, pathIndex));
         }
 
         return result;
@@ -334,51 +403,35 @@ public class ConfigSection extends MemoryConfiguration {
         LinkedHashMap<String, Object> result = new LinkedHashMap<>();
         int pathIndex = fullPath.lastIndexOf(root.pathChar);
 
-        if (deep) {
-            result.putAll((Map<String, Object>) root.defaults.entrySet().stream()
-                    .filter(k -> k.getKey().startsWith(fullPath))
-                    .collect(Collectors.toMap(
-                            e -> !e.getKey().endsWith(String.valueOf(root.pathChar)) ? e.getKey().substring(pathIndex + 1) : e.getKey().substring(pathIndex + 1, e.getKey().length() - 1),
-                            Map.Entry::getValue,
-                            (v1, v2) -> {
-                                throw new IllegalStateException();
-                            }, // never going to be merging keys
-                            LinkedHashMap::new)));
-
-            result.putAll((Map<String, Object>) root.values.entrySet().stream()
-                    .filter(k -> k.getKey().startsWith(fullPath))
-                    .collect(Collectors.toMap(
-                            e -> !e.getKey().endsWith(String.valueOf(root.pathChar)) ? e.getKey().substring(pathIndex + 1) : e.getKey().substring(pathIndex + 1, e.getKey().length() - 1),
-                            Map.Entry::getValue,
-                            (v1, v2) -> {
-                                throw new IllegalStateException();
-                            }, // never going to be merging keys
-                            LinkedHashMap::new)));
-        } else {
-            result.putAll((Map<String, Object>) root.defaults.entrySet().stream()
-                    .filter(k -> k.getKey().startsWith(fullPath) && k.getKey().lastIndexOf(root.pathChar) == pathIndex)
-                    .collect(Collectors.toMap(
-                            e -> !e.getKey().endsWith(String.valueOf(root.pathChar)) ? e.getKey().substring(pathIndex + 1) : e.getKey().substring(pathIndex + 1, e.getKey().length() - 1),
-                            Map.Entry::getValue,
-                            (v1, v2) -> {
-                                throw new IllegalStateException();
-                            }, // never going to be merging keys
-                            LinkedHashMap::new)));
-
-            result.putAll((Map<String, Object>) root.values.entrySet().stream()
-                    .filter(k -> k.getKey().startsWith(fullPath) && k.getKey().lastIndexOf(root.pathChar) == pathIndex)
-                    .collect(Collectors.toMap(
-                            e -> !e.getKey().endsWith(String.valueOf(root.pathChar)) ? e.getKey().substring(pathIndex + 1) : e.getKey().substring(pathIndex + 1, e.getKey().length() - 1),
-                            Map.Entry::getValue,
-                            (v1, v2) -> {
-                                throw new IllegalStateException();
-                            }, // never going to be merging keys
-                            LinkedHashMap::new)));
+        if (root.snapshotReads) {
+            ConfigSnapshot snapshot = getSnapshot();
+
+            for (String key : snapshot.getChildKeys(fullPath, deep, true)) {
+                result.put(getRelativeKey(key, pathIndex), snapshot.getDefault(key));
+            }
+
+            for (String key : snapshot.getChildKeys(fullPath, deep, false)) {
+                result.put(getRelativeKey(key, pathIndex), snapshot.getValue(key));
+            }
+
+            return result;
+        }
+
+        for (String key : root.defaults.getChildKeys(fullPath, deep)) {
+            result.put(getRelativeKey(key, pathIndex), root.defaults.get(key));
+        }
+
+        for (String key : root.values.getChildKeys(fullPath, deep)) {
+            result.put(getRelativeKey(key, pathIndex), root.values.get(key));
         }
 
         return result;
     }
 
+    private String getRelativeKey(String key, int pathIndex) {
+        return key.charAt(key.length() - 1) != root.pathChar ? key.substring(pathIndex + 1) : key.substring(pathIndex + 1, key.length() - 1);
+    }
+
     @NotNull
     public List<ConfigSection> getSections(String path) {
         ConfigSection rootSection = getConfigurationSection(path);
@@ -398,16 +451,28 @@ public class ConfigSection extends MemoryConfiguration {
 
     @Override
     public boolean contains(@NotNull String path) {
+        if (root.snapshotReads) {
+            return getSnapshot().contains(fullPath + path);
+        }
+
         return root.defaults.containsKey(fullPath + path) || root.values.containsKey(fullPath + path);
     }
 
     @Override
     public boolean contains(@NotNull String path, boolean ignoreDefault) {
+        if (root.snapshotReads) {
+            return getSnapshot().contains(fullPath + path, ignoreDefault);
+        }
+
         return (!ignoreDefault && root.defaults.containsKey(fullPath + path)) || root.values.containsKey(fullPath + path);
     }
 
     @Override
     public boolean isSet(@NotNull String path) {
+        if (root.snapshotReads) {
+            return getSnapshot().isSet(fullPath + path);
+        }
+
         return root.defaults.get(fullPath + path) != null || root.values.get(fullPath + path) != null;
     }
 
@@ -439,6 +504,10 @@ public class ConfigSection extends MemoryConfiguration {
     @Nullable
     @Override
     public Object get(@NotNull String path) {
+        if (root.snapshotReads) {
+            return getSnapshot().get(fullPath + path);
+        }
+
         Object result = root.values.get(fullPath + path);
 
         if (result == null) {
@@ -451,6 +520,10 @@ public class ConfigSection extends MemoryConfiguration {
     @Nullable
     @Override
     public Object get(@NotNull String path, @Nullable Object def) {
+        if (root.snapshotReads) {
+            return getSnapshot().get(fullPath + path, def);
+        }
+
         Object result = root.values.get(fullPath + path);
 
         return result != null ? result : def;
@@ -477,10 +550,7 @@ public class ConfigSection extends MemoryConfiguration {
             // clean up orphaned nodes
             final String trim = fullPath + path + root.pathChar;
             synchronized (root.lock) {
-                root.values.keySet().stream()
-                        .filter(k -> k.startsWith(trim))
-                        .collect(Collectors.toSet())
-                        .forEach(root.values::remove);
+                root.values.getChildKeys(trim, true).forEach(root.values::remove);
             }
         }
 
@@ -747,6 +817,7 @@ public class ConfigSection extends MemoryConfiguration {
 
     @Override
     public ConfigSection getConfigurationSection(@NotNull String path) {
+        // served from the snapshot by get when snapshot reads are enabled
         Object result = get(path);
 
         return result instanceof ConfigSection ? (ConfigSection) result : null;
@@ -0,0 +1,142 @@
+package com.songoda.core.configuration;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of all values and defaults of a config at a specific version. <br>
+ * Snapshots can be read from any thread without locking.
+ * Paths are always relative to the root of the config.
+ * Only the node structure is copied, mutable values like lists are shared with the config.
+ *
+ * @see ConfigSection#getSnapshot()
+ */
+public class ConfigSnapshot {
+    private final long version;
+    private final char pathChar;
+    private final Map<String, Object> values;
+    private final Map<String, Object> defaults;
+    private final Map<String, List<String>> valueChildren;
+    private final Map<String, List<String>> defaultChildren;
+
+    ConfigSnapshot(long version, char pathChar, ConfigNodeMap values, ConfigNodeMap defaults) {
+        this.version = version;
+        this.pathChar = pathChar;
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+        this.defaults = Collections.unmodifiableMap(new HashMap<>(defaults));
+        this.valueChildren = values.copyChildren();
+        this.defaultChildren = defaults.copyChildren();
+    }
+
+    /**
+     * @return the version of the config this snapshot has been taken at, increasing with every change
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Nullable
+    public Object get(@NotNull String path) {
+        Object result = values.get(path);
+
+        if (result == null) {
+            result = defaults.get(path);
+        }
+
+        return result;
+    }
+
+    @Nullable
+    public Object get(@NotNull String path, @Nullable Object def) {
+        Object result = values.get(path);
+
+        return result != null ? result : def;
+    }
+
+    public boolean contains(@NotNull String path) {
+        return defaults.containsKey(path) || values.containsKey(path);
+    }
+
+    public boolean contains(@NotNull String path, boolean ignoreDefault) {
+        return (!ignoreDefault && defaults.containsKey(path)) || values.containsKey(path);
+    }
+
+    public boolean isSet(@NotNull String path) {
+        return defaults.get(path) != null || values.get(path) != null;
+    }
+
+    @Nullable
+    public String getString(@NotNull String path) {
+        Object result = get(path);
+
+        return result != null ? result.toString() : null;
+    }
+
+    @Nullable
+    public String getString(@NotNull String path, @Nullable String def) {
+        Object result = get(path);
+
+        return result != null ? result.toString() : def;
+    }
+
+    public int getInt(@NotNull String path, int def) {
+        Object result = get(path);
+
+        return result instanceof Number ? ((Number) result).intValue() : def;
+    }
+
+    public long getLong(@NotNull String path, long def) {
+        Object result = get(path);
+
+        return result instanceof Number ? ((Number) result).longValue() : def;
+    }
+
+    public double getDouble(@NotNull String path, double def) {
+        Object result = get(path);
+
+        return result instanceof Number ? ((Number) result).doubleValue() : def;
+    }
+
+    public boolean getBoolean(@NotNull String path, boolean def) {
+        Object result = get(path);
+
+        return result instanceof Boolean ? (Boolean) result : def;
+    }
+
+    @Nullable
+    public List<?> getList(@NotNull String path) {
+        Object result = get(path);
+
+        return result instanceof List ? (List<?>) result : null;
+    }
+
+    /**
+     * @param path     the full path of the parent section, including the trailing path separator or empty for the root
+     * @param deep     true to list all keys below the path, false to only list the direct children
+     * @param defaults true to list the keys of the defaults instead of the values
+     *
+     * @return the full keys below the path, parents are listed before their children
+     */
+    List<String> getChildKeys(String path, boolean deep, boolean defaults) {
+        List<String> result = new ArrayList<>();
+        ConfigNodeMap.collectChildKeys(defaults ? defaultChildren : valueChildren, pathChar, path, deep, result);
+
+        return result;
+    }
+
+    @Nullable
+    Object getValue(@NotNull String path) {
+        return values.get(path);
+    }
+
+    @Nullable
+    Object getDefault(@NotNull String path) {
+        return defaults.get(path);
+    }
+}
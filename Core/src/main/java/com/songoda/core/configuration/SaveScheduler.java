@@ -0,0 +1,231 @@
+package com.songoda.core.configuration;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Schedules delayed saves of {@link Config}s and {@link SimpleDataStore}s on a small shared thread pool. <br>
+ * Every owner has at most one pending save, scheduling another one while a save is pending does nothing.
+ * The size of the pool limits how many files are written at the same time.
+ */
+public class SaveScheduler {
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 5;
+    public static final int PRIORITY_HIGH = 10;
+
+    private static final SaveScheduler INSTANCE = new SaveScheduler(2);
+
+    private final int maxConcurrentSaves;
+    private final AtomicInteger threadId = new AtomicInteger();
+    private ScheduledThreadPoolExecutor executor;
+    private final Map<Object, PendingSave> pendingSaves = new IdentityHashMap<>();
+
+    private final LongAdder completedSaves = new LongAdder();
+    private final LongAdder totalSaveNanos = new LongAdder();
+
+    private SaveScheduler(int maxConcurrentSaves) {
+        this.maxConcurrentSaves = maxConcurrentSaves;
+    }
+
+    public static SaveScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Schedule a save, unless one is already pending for the owner
+     *
+     * @param owner    the object that is saved, used to merge multiple requests
+     * @param priority the priority of this save when flushing all pending saves, higher values are saved first
+     * @param delay    the time to wait before saving
+     * @param unit     the unit of the delay
+     * @param save     the task saving the owner
+     *
+     * @return true if the save has been scheduled, false if a save was already pending
+     */
+    public boolean schedule(@NotNull Object owner, int priority, long delay, @NotNull TimeUnit unit, @NotNull Runnable save) {
+        synchronized (pendingSaves) {
+            if (pendingSaves.containsKey(owner)) {
+                return false;
+            }
+
+            PendingSave pendingSave = new PendingSave(owner, priority, save);
+            pendingSaves.put(owner, pendingSave);
+            pendingSave.future = getExecutor().schedule(() -> run(pendingSave), delay, unit);
+        }
+
+        return true;
+    }
+
+    /**
+     * @param owner the object that is saved
+     *
+     * @return true if a save is pending for the owner
+     */
+    public boolean isScheduled(@NotNull Object owner) {
+        synchronized (pendingSaves) {
+            return pendingSaves.containsKey(owner);
+        }
+    }
+
+    /**
+     * Cancel the pending save of an owner
+     *
+     * @param owner the object that is saved
+     *
+     * @return true if a pending save has been cancelled
+     */
+    public boolean cancel(@NotNull Object owner) {
+        PendingSave pendingSave;
+
+        synchronized (pendingSaves) {
+            pendingSave = pendingSaves.remove(owner);
+        }
+
+        if (pendingSave == null) {
+            return false;
+        }
+
+        pendingSave.future.cancel(false);
+        return true;
+    }
+
+    /**
+     * Immediately runs all pending saves on the calling thread, highest priority first. <br>
+     * {@link #shutdown()} also stops the save threads and should be used when the plugin is disabled.
+     */
+    public void flushAll() {
+        List<PendingSave> saves;
+
+        synchronized (pendingSaves) {
+            saves = new ArrayList<>(pendingSaves.values());
+        }
+
+        saves.sort(Comparator.comparingInt((PendingSave save) -> save.priority).reversed());
+
+        for (PendingSave pendingSave : saves) {
+            pendingSave.future.cancel(false);
+            run(pendingSave);
+        }
+    }
+
+    /**
+     * Runs all pending saves, waits for saves that are already running and stops the save threads. <br>
+     * Has to be called when the plugin is disabled, the threads would otherwise keep the plugin's class loader alive.
+     * Saves scheduled afterwards start new threads.
+     */
+    public void shutdown() {
+        flushAll();
+
+        ScheduledThreadPoolExecutor executor;
+
+        synchronized (pendingSaves) {
+            executor = this.executor;
+            this.executor = null;
+        }
+
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                Logger.getLogger(SaveScheduler.class.getName()).warning("Timed out waiting for running saves to finish");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        // saves scheduled while shutting down had their delayed task dropped
+        flushAll();
+    }
+
+    /**
+     * @return the number of saves waiting to be run
+     */
+    public int getPendingSaves() {
+        synchronized (pendingSaves) {
+            return pendingSaves.size();
+        }
+    }
+
+    /**
+     * @return the number of saves that have been run
+     */
+    public long getCompletedSaves() {
+        return completedSaves.sum();
+    }
+
+    /**
+     * @return the average time in milliseconds a save took to run
+     */
+    public double getAverageSaveTime() {
+        long completed = completedSaves.sum();
+        return completed == 0 ? 0 : totalSaveNanos.sum() / (double) completed / 1_000_000D;
+    }
+
+    // guarded by pendingSaves
+    private ScheduledThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(maxConcurrentSaves, runnable -> {
+                Thread thread = new Thread(runnable, "SongodaCore-Save-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+
+        return executor;
+    }
+
+    private void run(PendingSave pendingSave) {
+        synchronized (pendingSaves) {
+            // cancelled or already run by flushAll
+            if (pendingSaves.get(pendingSave.owner) != pendingSave) {
+                return;
+            }
+
+            pendingSaves.remove(pendingSave.owner);
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            pendingSave.save.run();
+        } catch (Throwable th) {
+            Logger.getLogger(SaveScheduler.class.getName()).log(Level.SEVERE, "Error running scheduled save", th);
+        } finally {
+            totalSaveNanos.add(System.nanoTime() - start);
+            completedSaves.increment();
+        }
+    }
+
+    private static class PendingSave {
+        final Object owner;
+        final int priority;
+        final Runnable save;
+        ScheduledFuture<?> future;
+
+        PendingSave(Object owner, int priority, Runnable save) {
+            this.owner = owner;
+            this.priority = priority;
+            this.save = save;
+        }
+    }
+}
@@ -9,16 +9,29 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
 
 /**
  * Used to easily store a set of one data value
+ * <br><br>
+ * By default the data is saved as YAML, rewriting the whole file on every save.
+ * With {@link StorageFormat#BINARY} the data is kept in a binary snapshot, and saves only append the
+ * added, changed and removed entries to a journal. The journal is merged into a new snapshot in the background
+ * once it has grown past {@link #setCompactionThreshold(int)} records.
+ * Changes are only tracked through the methods of this class and {@link DataStoreObject#hasChanged()},
+ * entries removed directly from {@link #getData()} stay in the binary storage until the next compaction.
+ * <br><br>
+ * The data is held in a {@link ConcurrentHashMap}, so it can be read and iterated from any thread.
+ * Saves iterate over it weakly consistent and never block {@link #add(DataStoreObject)} or {@link #remove(Object)}.
  *
  * @param <T> DataObject class that is used to store the data
  */
@@ -26,16 +39,24 @@ public class SimpleDataStore<T extends DataStoreObject> {
     protected final Plugin plugin;
     protected final String filename, dirName;
     private final Function<ConfigurationSection, T> getFromSection;
-    protected final HashMap<Object, T> data = new HashMap<>();
+    protected final ConcurrentHashMap<Object, T> data = new ConcurrentHashMap<>();
     private File file;
-    private final Object lock = new Object();
-    SaveTask saveTask;
-    Timer autosaveTimer;
     /**
      * time in seconds to start a save after a change is made
      */
     int autosaveInterval = 60;
 
+    private StorageFormat storageFormat = StorageFormat.YAML;
+    private BinaryDataStore binaryStore;
+    private final Object ioLock = new Object();
+    private final Object compactionTask = new Object();
+    private int compactionThreshold = 10_000;
+    /**
+     * keys of entries added since the last save, and config keys of entries removed since the last save
+     */
+    private final Set<Object> addedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> removedKeys = ConcurrentHashMap.newKeySet();
+
     public SimpleDataStore(@NotNull Plugin plugin, @NotNull String filename, @NotNull Function<ConfigurationSection, T> loadFunction) {
         this.plugin = plugin;
         this.filename = filename;
@@ -63,9 +84,65 @@ public class SimpleDataStore<T extends DataStoreObject> {
         return file;
     }
 
+    @NotNull
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    /**
+     * Sets how this storage is saved. Should be set before the data is loaded. <br>
+     * When switching to {@link StorageFormat#BINARY}, an existing YAML file is imported on {@link #load()}
+     * if there is no binary storage yet.
+     *
+     * @param storageFormat the format to save the data in
+     */
+    public SimpleDataStore<T> setStorageFormat(@NotNull StorageFormat storageFormat) {
+        this.storageFormat = storageFormat;
+        return this;
+    }
+
+    /**
+     * @param compactionThreshold the number of journal records after which the journal is merged into a new snapshot
+     */
+    public SimpleDataStore<T> setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+        return this;
+    }
+
+    /**
+     * @return the binary snapshot file, next to the YAML file
+     */
+    @NotNull
+    public File getSnapshotFile() {
+        return new File(getFile().getParentFile(), getBaseName() + ".dat");
+    }
+
+    /**
+     * @return the binary journal file, next to the YAML file
+     */
+    @NotNull
+    public File getJournalFile() {
+        return new File(getFile().getParentFile(), getBaseName() + ".journal");
+    }
+
+    private String getBaseName() {
+        String name = getFile().getName();
+        int extension = name.lastIndexOf('.');
+
+        return extension > 0 ? name.substring(0, extension) : name;
+    }
+
+    private BinaryDataStore getBinaryStore() {
+        if (binaryStore == null) {
+            binaryStore = new BinaryDataStore(getSnapshotFile(), getJournalFile());
+        }
+
+        return binaryStore;
+    }
+
     /**
      * @return a directly-modifiable instance of the data mapping for this
-     *         storage
+     *         storage, safe to be used from any thread
      */
     public Map<Object, T> getData() {
         return data;
@@ -82,7 +159,8 @@ public class SimpleDataStore<T extends DataStoreObject> {
      */
     @Nullable
     public T get(Object key) {
-        return data.get(key);
+        // ConcurrentHashMap doesn't allow null keys
+        return key == null ? null : data.get(key);
     }
 
     /**
@@ -95,10 +173,14 @@ public class SimpleDataStore<T extends DataStoreObject> {
      */
     @Nullable
     public T remove(@NotNull Object key) {
-        T temp;
+        if (key == null) {
+            return null;
+        }
+
+        T temp = data.remove(key);
 
-        synchronized (lock) {
-            temp = data.remove(key);
+        if (temp != null) {
+            trackRemoval(temp);
         }
 
         save();
@@ -116,14 +198,14 @@ public class SimpleDataStore<T extends DataStoreObject> {
      */
     @Nullable
     public T remove(@NotNull T value) {
-        if (value == null) {
+        if (value == null || value.getKey() == null) {
             return null;
         }
 
-        T temp;
+        T temp = data.remove(value.getKey());
 
-        synchronized (lock) {
-            temp = data.remove(value.getKey());
+        if (temp != null) {
+            trackRemoval(temp);
         }
 
         save();
@@ -146,11 +228,7 @@ public class SimpleDataStore<T extends DataStoreObject> {
             return null;
         }
 
-        T temp;
-
-        synchronized (lock) {
-            temp = data.put(value.getKey(), value);
-        }
+        T temp = put(value);
 
         save();
 
@@ -168,11 +246,9 @@ public class SimpleDataStore<T extends DataStoreObject> {
             return;
         }
 
-        synchronized (lock) {
-            for (T t : value) {
-                if (t != null) {
-                    data.put(t.getKey(), t);
-                }
+        for (T t : value) {
+            if (t != null) {
+                put(t);
             }
         }
 
@@ -191,32 +267,56 @@ public class SimpleDataStore<T extends DataStoreObject> {
             return;
         }
 
-        synchronized (lock) {
-            for (T v : value) {
-                if (v != null) {
-                    data.put(v.getKey(), v);
-                }
+        for (T v : value) {
+            if (v != null) {
+                put(v);
             }
         }
 
         save();
     }
 
+    private T put(T value) {
+        T last = data.put(value.getKey(), value);
+        addedKeys.add(value.getKey());
+
+        return last;
+    }
+
+    private void trackRemoval(T removed) {
+        addedKeys.remove(removed.getKey());
+        removedKeys.add(removed.getConfigKey());
+    }
+
     /**
      * Load data from the associated file
      */
     public void load() {
-        if (!getFile().exists()) {
+        if (storageFormat == StorageFormat.BINARY) {
+            loadBinary();
             return;
         }
 
+        if (getFile().exists()) {
+            importYaml(getFile());
+        }
+    }
+
+    /**
+     * Replace the data of this storage with the data of a YAML file
+     *
+     * @param yamlFile the file to load the data from
+     */
+    public void importYaml(@NotNull File yamlFile) {
         try {
             YamlConfiguration f = new YamlConfiguration();
             f.options().pathSeparator('\0');
-            f.load(file);
+            f.load(yamlFile);
 
-            synchronized (lock) {
+            synchronized (ioLock) {
                 data.clear();
+                addedKeys.clear();
+                removedKeys.clear();
 
                 f.getValues(false).values().stream()
                         .filter(ConfigurationSection.class::isInstance)
@@ -224,7 +324,59 @@ public class SimpleDataStore<T extends DataStoreObject> {
                         .forEach(v -> data.put(v.getKey(), v));
             }
         } catch (IOException | InvalidConfigurationException ex) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to load data from " + file.getName(), ex);
+            plugin.getLogger().log(Level.SEVERE, "Failed to load data from " + yamlFile.getName(), ex);
+        }
+    }
+
+    /**
+     * Write all data of this storage to a YAML file
+     *
+     * @param yamlFile the file to save the data to
+     *
+     * @return true if the data has been saved
+     */
+    public boolean exportYaml(@NotNull File yamlFile) {
+        YamlConfiguration f = new YamlConfiguration();
+
+        data.values().forEach(e -> e.saveToSection(f.createSection(e.getConfigKey())));
+
+        try {
+            f.save(yamlFile);
+            return true;
+        } catch (IOException ex) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to save data to " + yamlFile.getName(), ex);
+            return false;
+        }
+    }
+
+    private void loadBinary() {
+        BinaryDataStore store = getBinaryStore();
+
+        if (!store.exists()) {
+            if (getFile().exists()) {
+                // first start with the binary format, keep the YAML file as a backup
+                importYaml(getFile());
+                compact();
+            }
+
+            return;
+        }
+
+        synchronized (ioLock) {
+            try {
+                Map<String, ConfigurationSection> entries = store.read();
+
+                data.clear();
+                addedKeys.clear();
+                removedKeys.clear();
+
+                for (ConfigurationSection section : entries.values()) {
+                    T value = getFromSection.apply(section);
+                    data.put(value.getKey(), value);
+                }
+            } catch (IOException ex) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to load data from " + getSnapshotFile().getName(), ex);
+            }
         }
     }
 
@@ -233,7 +385,8 @@ public class SimpleDataStore<T extends DataStoreObject> {
      * made
      */
     public void saveChanges() {
-        if (saveTask != null || data.values().stream().anyMatch(DataStoreObject::hasChanged)) {
+        if (SaveScheduler.getInstance().isScheduled(this) || !addedKeys.isEmpty() || !removedKeys.isEmpty()
+                || data.values().stream().anyMatch(DataStoreObject::hasChanged)) {
             flushSave();
         }
     }
@@ -243,42 +396,157 @@ public class SimpleDataStore<T extends DataStoreObject> {
      */
     public void save() {
         // save async even if no plugin or if plugin disabled
-        if (saveTask == null) {
-            autosaveTimer = new Timer((plugin != null ? plugin.getName() + "-DataStoreSave-" : "DataStoreSave-") + getFile().getName());
-            autosaveTimer.schedule(saveTask = new SaveTask(), autosaveInterval * 1000L);
-        }
+        SaveScheduler.getInstance().schedule(this, SaveScheduler.PRIORITY_HIGH, autosaveInterval, TimeUnit.SECONDS, this::flushSave);
     }
 
     /**
      * Force a new save of this storage's data
      */
     public void flushSave() {
-        if (saveTask != null) {
-            //Close Threads
-            saveTask.cancel();
-            autosaveTimer.cancel();
-            saveTask = null;
-            autosaveTimer = null;
+        SaveScheduler.getInstance().cancel(this);
+
+        if (storageFormat == StorageFormat.BINARY) {
+            flushJournal();
+            return;
         }
 
-        YamlConfiguration f = new YamlConfiguration();
+        synchronized (ioLock) {
+            Set<Object> added = drain(addedKeys);
+            Set<String> removed = drain(removedKeys);
+            List<T> changed = takeChanged();
 
-        synchronized (lock) {
-            data.values().forEach(e -> e.saveToSection(f.createSection(e.getConfigKey())));
+            if (!exportYaml(getFile())) {
+                restore(added, removed, changed);
+            }
         }
+    }
 
-        try {
-            f.save(getFile());
-            data.values().forEach(e -> e.setChanged(false));
-        } catch (IOException ex) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to save data to " + file.getName(), ex);
+    /**
+     * Merge the binary journal into a new snapshot. This is done automatically in the background
+     * once the journal has grown past the compaction threshold.
+     */
+    public void compact() {
+        synchronized (ioLock) {
+            // changes made while the snapshot is written stay tracked and go to the new journal
+            Set<Object> added = drain(addedKeys);
+            Set<String> removed = drain(removedKeys);
+            List<T> changed = takeChanged();
+
+            try {
+                List<byte[]> records = new ArrayList<>(data.size());
+
+                for (T value : data.values()) {
+                    records.add(encode(value));
+                }
+
+                getBinaryStore().writeSnapshot(records);
+            } catch (IOException ex) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save data to " + getSnapshotFile().getName(), ex);
+                restore(added, removed, changed);
+            }
         }
     }
 
-    class SaveTask extends TimerTask {
-        @Override
-        public void run() {
-            flushSave();
+    private void flushJournal() {
+        synchronized (ioLock) {
+            Set<Object> added = drain(addedKeys);
+            Set<String> removed = drain(removedKeys);
+            List<T> changed = takeChanged();
+
+            try {
+                List<byte[]> records = new ArrayList<>();
+
+                // removals first, an entry may have been removed and added again
+                for (String configKey : removed) {
+                    records.add(BinaryDataStore.encodeRemove(configKey));
+                }
+
+                for (T value : changed) {
+                    added.remove(value.getKey());
+                    records.add(encode(value));
+                }
+
+                for (Object key : added) {
+                    T value = data.get(key);
+
+                    if (value != null) {
+                        records.add(encode(value));
+                    }
+                }
+
+                getBinaryStore().append(records);
+            } catch (IOException ex) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save data to " + getJournalFile().getName(), ex);
+                restore(added, removed, changed);
+
+                save();
+                return;
+            }
+        }
+
+        if (getBinaryStore().getJournalRecords() >= compactionThreshold) {
+            SaveScheduler.getInstance().schedule(compactionTask, SaveScheduler.PRIORITY_LOW, 0, TimeUnit.SECONDS, this::compact);
+        }
+    }
+
+    /**
+     * Removes the tracked entries one by one, so entries tracked concurrently are either taken or kept for the next save
+     */
+    private static <E> Set<E> drain(Set<E> tracked) {
+        Set<E> drained = new LinkedHashSet<>();
+
+        for (E element : tracked) {
+            if (tracked.remove(element)) {
+                drained.add(element);
+            }
+        }
+
+        return drained;
+    }
+
+    /**
+     * Clears the changed flag of every changed entry before it is saved, so changes made during the save are not lost
+     */
+    private List<T> takeChanged() {
+        List<T> changed = new ArrayList<>();
+
+        for (T value : data.values()) {
+            if (value.hasChanged()) {
+                value.setChanged(false);
+                changed.add(value);
+            }
         }
+
+        return changed;
+    }
+
+    /**
+     * Tracks the changes of a failed save again
+     */
+    private void restore(Set<Object> added, Set<String> removed, List<T> changed) {
+        addedKeys.addAll(added);
+        removedKeys.addAll(removed);
+        changed.forEach(e -> e.setChanged(true));
+    }
+
+    private byte[] encode(T value) throws IOException {
+        YamlConfiguration f = new YamlConfiguration();
+        f.options().pathSeparator('\0');
+
+        ConfigurationSection section = f.createSection(value.getConfigKey());
+        value.saveToSection(section);
+
+        return BinaryDataStore.encodePut(value.getConfigKey(), section);
+    }
+
+    public enum StorageFormat {
+        /**
+         * Human-readable YAML file, rewritten completely on every save
+         */
+        YAML,
+        /**
+         * Binary snapshot and append-only journal, saves only write the changed entries
+         */
+        BINARY
     }
 }
@@ -58,7 +58,7 @@ public class ConfigEditorListEditorGui extends SimplePagedGui {
 
         // clear old display
         if (inventory != null) {
-            for (Integer i : cellItems.keySet().toArray(new Integer[0])) {
+            for (int i : cellItems.getCells()) {
                 if (i > 8) {
                     cellItems.remove(i);
                     conditionalButtons.remove(i);
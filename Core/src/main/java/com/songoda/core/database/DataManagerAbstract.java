@@ -4,32 +4,57 @@ import org.bukkit.Bukkit;
 import org.bukkit.plugin.Plugin;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public class DataManagerAbstract {
     protected final DatabaseConnector databaseConnector;
     protected final Plugin plugin;
 
-    protected final ExecutorService asyncPool = Executors.newSingleThreadExecutor();
+    /**
+     * Runs database tasks. Tasks without a key run one after another,
+     * keyed tasks run in submission order per key and in parallel to other keys.
+     */
+    protected final StripedExecutor asyncPool;
+    /**
+     * Runs {@link #streamQuery} on their own threads, so long reads don't hold up the tasks of {@link #asyncPool}.
+     * Null for connectors with a single connection, streamed queries are queued on the async pool instead.
+     */
+    private final ExecutorService streamPool;
 
-    @Deprecated
-    private static final Map<String, LinkedList<Runnable>> queues = new HashMap<>();
+    private WriteBehindQueue writeBehindQueue;
 
     public DataManagerAbstract(DatabaseConnector databaseConnector, Plugin plugin) {
         this.databaseConnector = databaseConnector;
         this.plugin = plugin;
+
+        this.asyncPool = new StripedExecutor(plugin.getDescription().getName() + "-Database",
+                databaseConnector == null ? 1 : databaseConnector.getMaximumPoolSize());
+
+        if (databaseConnector != null && databaseConnector.getMaximumPoolSize() > 1) {
+            String threadName = plugin.getDescription().getName() + "-Database-Stream-";
+            AtomicInteger threadId = new AtomicInteger();
+
+            this.streamPool = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, threadName + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.streamPool = null;
+        }
     }
 
     /**
@@ -41,6 +66,8 @@ public class DataManagerAbstract {
 
     /**
      * Deprecated because it is often times not accurate to its use case. (+race-conditions)
+     *
+     * @deprecated Use {@link QueryRunner#insert(String, Object...)} to get the generated key of an insert
      */
     @Deprecated
     protected int lastInsertedId(Connection connection) {
@@ -49,6 +76,8 @@ public class DataManagerAbstract {
 
     /**
      * Deprecated because it is often times not accurate to its use case. (+race-conditions)
+     *
+     * @deprecated Use {@link QueryRunner#insert(String, Object...)} to get the generated key of an insert
      */
     @Deprecated
     protected int lastInsertedId(Connection connection, String table) {
@@ -92,6 +121,89 @@ public class DataManagerAbstract {
         return CompletableFuture.runAsync(runnable, this.asyncPool);
     }
 
+    /**
+     * Queue a task to be run asynchronously after all previously queued tasks with the same key
+     * with all the advantages of CompletableFuture api <br>
+     *
+     * @param key      the key to order the task by (e.g. a player's UUID)
+     * @param runnable task to run
+     */
+    public CompletableFuture<Void> asyncFuture(Object key, Runnable runnable) {
+        return CompletableFuture.runAsync(runnable, command -> this.asyncPool.execute(key, command));
+    }
+
+    /**
+     * Streams the result of a query in fixed-size chunks.
+     * <br>
+     * If the connector has more than one connection, the query runs on its own thread with a read connection,
+     * so it doesn't delay the tasks of the async pool or the write-behind queue.
+     * Connectors with a single connection run it on the async pool, after all previously queued tasks without a key.
+     * <br>
+     * Rows are read with a forward-only cursor (row-by-row streaming on MySQL),
+     * so only one chunk of rows is held in memory at a time.
+     * The consumer is called on the async thread and may hand a finished chunk to the main thread using {@link #sync(Runnable)}:
+     *
+     * <pre>{@code
+     * streamQuery("SELECT * FROM " + getTablePrefix() + "spawners", SpawnerData::fromRow, 1000,
+     *         chunk -> sync(() -> chunk.forEach(this::registerSpawner)),
+     *         loaded -> plugin.getLogger().info("Loaded " + loaded + " spawners"));
+     * }</pre>
+     *
+     * @param sql           the query to execute
+     * @param mapper        maps the current row to an object
+     * @param chunkSize     the maximum amount of rows per chunk
+     * @param chunkConsumer receives every chunk of mapped rows in order
+     * @param progress      receives the total amount of rows loaded after every chunk, may be null
+     * @param params        the parameters of the query
+     *
+     * @return a future completing with the total amount of rows loaded
+     */
+    public <T> CompletableFuture<Long> streamQuery(String sql, QueryRunner.RowMapper<T> mapper, int chunkSize,
+                                                   Consumer<List<T>> chunkConsumer, LongConsumer progress, Object... params) {
+        int size = Math.max(1, chunkSize);
+
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = this.databaseConnector.getReadConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Connector/J only streams rows instead of buffering the whole result with this fetch size
+                statement.setFetchSize(this.databaseConnector instanceof MySQLConnector ? Integer.MIN_VALUE : size);
+                QueryRunner.bind(statement, params);
+
+                long loaded = 0;
+                List<T> chunk = new ArrayList<>(size);
+
+                try (ResultSet result = statement.executeQuery()) {
+                    while (result.next()) {
+                        chunk.add(mapper.map(result));
+
+                        if (chunk.size() >= size) {
+                            loaded += chunk.size();
+                            chunkConsumer.accept(chunk);
+                            chunk = new ArrayList<>(size);
+
+                            if (progress != null) {
+                                progress.accept(loaded);
+                            }
+                        }
+                    }
+                }
+
+                if (!chunk.isEmpty()) {
+                    loaded += chunk.size();
+                    chunkConsumer.accept(chunk);
+
+                    if (progress != null) {
+                        progress.accept(loaded);
+                    }
+                }
+
+                return loaded;
+            } catch (SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        }, this.streamPool != null ? this.streamPool : this.asyncPool);
+    }
+
     /**
      * Queue a task to be run synchronously.
      *
@@ -109,7 +221,30 @@ public class DataManagerAbstract {
     //        are **not** thread-safe in any way. The connection is not pooled or anything...
     //        So the actual problem is that plugins just queue way too much tasks on bulk which it just shouldn't need to do...
     public void runAsync(Runnable task, Consumer<Throwable> callback) {
-        this.asyncPool.execute(() -> {
+        runKeyedAsync(null, task, callback);
+    }
+
+    /**
+     * Queue a task to be run asynchronously after all previously queued tasks with the same key.
+     * Tasks with different keys may run in parallel, depending on the connector's pool size.
+     *
+     * @param key  the key to order the task by (e.g. a player's UUID)
+     * @param task task to run
+     */
+    public void runKeyedAsync(Object key, Runnable task) {
+        runKeyedAsync(key, task, null);
+    }
+
+    /**
+     * Queue a task to be run asynchronously after all previously queued tasks with the same key.
+     * Tasks with different keys may run in parallel, depending on the connector's pool size.
+     *
+     * @param key      the key to order the task by (e.g. a player's UUID)
+     * @param task     task to run
+     * @param callback called with null on success or the thrown exception on failure
+     */
+    public void runKeyedAsync(Object key, Runnable task, Consumer<Throwable> callback) {
+        this.asyncPool.execute(key, () -> {
             try {
                 task.run();
 
@@ -127,24 +262,94 @@ public class DataManagerAbstract {
         });
     }
 
+    /**
+     * Returns the write-behind queue of this data manager, creating it on first use.
+     * Pending rows are flushed as batches on the async pool and before it is shut down.
+     *
+     * @return the write-behind queue for this data manager
+     *
+     * @see WriteBehindQueue
+     */
+    public synchronized WriteBehindQueue getWriteBehindQueue() {
+        if (this.writeBehindQueue == null) {
+            this.writeBehindQueue = new WriteBehindQueue(this, 500, 20);
+        }
+
+        return this.writeBehindQueue;
+    }
+
+    /**
+     * Queues an update for a row to be written in the next batch.
+     * Any pending update for the same row is replaced.
+     *
+     * @see WriteBehindQueue#queue(String, Object, String, WriteBehindQueue.StatementBinder)
+     */
+    public void queueWrite(String table, Object primaryKey, String sql, WriteBehindQueue.StatementBinder binder) {
+        getWriteBehindQueue().queue(table, primaryKey, sql, binder);
+    }
+
     public void shutdownTaskQueue() {
+        flushWriteBehindQueue();
         this.asyncPool.shutdown();
+
+        if (this.streamPool != null) {
+            this.streamPool.shutdown();
+        }
     }
 
     public List<Runnable> forceShutdownTaskQueue() {
-        return this.asyncPool.shutdownNow();
+        List<Runnable> remaining = this.asyncPool.shutdownNow();
+
+        if (this.streamPool != null) {
+            this.streamPool.shutdownNow();
+        }
+
+        WriteBehindQueue queue;
+        synchronized (this) {
+            queue = this.writeBehindQueue;
+        }
+
+        if (queue != null) {
+            queue.flush();
+        }
+
+        return remaining;
+    }
+
+    private void flushWriteBehindQueue() {
+        WriteBehindQueue queue;
+        synchronized (this) {
+            queue = this.writeBehindQueue;
+        }
+
+        if (queue != null && !this.asyncPool.isShutdown()) {
+            this.asyncPool.execute(queue::flush);
+        }
     }
 
     public boolean isTaskQueueTerminated() {
         return this.asyncPool.isTerminated();
     }
 
+    /**
+     * @return the number of tasks that have been queued but not completed yet
+     */
     public long getTaskQueueSize() {
-        if (this.asyncPool instanceof ThreadPoolExecutor) {
-            return ((ThreadPoolExecutor) this.asyncPool).getTaskCount();
-        }
+        return this.asyncPool.getPendingTaskCount();
+    }
+
+    /**
+     * @return the average time in milliseconds a task waited before it was run
+     */
+    public double getAverageTaskWaitTime() {
+        return this.asyncPool.getAverageWaitTime();
+    }
 
-        return -1;
+    /**
+     * @return the average time in milliseconds a task took to run
+     */
+    public double getAverageTaskExecutionTime() {
+        return this.asyncPool.getAverageExecutionTime();
     }
 
     /**
@@ -159,6 +364,8 @@ public class DataManagerAbstract {
      *
      * @param runnable task to put into queue.
      * @param queueKey the queue key to add the runnable to.
+     *
+     * @deprecated Use {@link #runKeyedAsync(Object, Runnable)} instead
      */
     @Deprecated
     public void queueAsync(Runnable runnable, String queueKey) {
@@ -166,34 +373,6 @@ public class DataManagerAbstract {
             return;
         }
 
-        List<Runnable> queue = queues.computeIfAbsent(queueKey, t -> new LinkedList<>());
-        queue.add(runnable);
-
-        if (queue.size() == 1) {
-            runQueue(queueKey);
-        }
-    }
-
-    @Deprecated
-    private void runQueue(String queueKey) {
-        doQueue(queueKey, (s) -> {
-            if (!queues.get(queueKey).isEmpty()) {
-                runQueue(queueKey);
-            }
-        });
-    }
-
-    @Deprecated
-    private void doQueue(String queueKey, Consumer<Boolean> callback) {
-        Runnable runnable = queues.get(queueKey).getFirst();
-
-        async(() -> {
-            runnable.run();
-
-            sync(() -> {
-                queues.get(queueKey).remove(runnable);
-                callback.accept(true);
-            });
-        });
+        runKeyedAsync(queueKey, runnable);
     }
 }
@@ -1,7 +1,10 @@
 package com.songoda.core.database;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.zip.CRC32;
 
 public abstract class DataMigration {
     private final int revision;
@@ -18,4 +21,50 @@ public abstract class DataMigration {
     public int getRevision() {
         return this.revision;
     }
+
+    /**
+     * The checksum is stored when the migration is applied and compared on every following run
+     * to detect an already applied migration that has been edited or replaced.
+     * <br>
+     * Defaults to an empty string, which disables the check. Override it with {@link #checksumOf(String...)}
+     * of the statements the migration executes, or with a version string that is changed whenever the migration is edited.
+     *
+     * @return the checksum of the content of this migration, empty to not check it
+     */
+    public String getChecksum() {
+        return "";
+    }
+
+    /**
+     * @param contents the statements or other content the migration consists of
+     *
+     * @return a checksum of the content, to be returned by {@link #getChecksum()}
+     */
+    protected static String checksumOf(String... contents) {
+        CRC32 crc = new CRC32();
+
+        for (String content : contents) {
+            crc.update(content.getBytes(StandardCharsets.UTF_8));
+            // separate the contents, so moving text from one to the next changes the checksum
+            crc.update(0);
+        }
+
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Executes multiple statements as a single batch
+     *
+     * @param connection The connection to execute the statements on
+     * @param statements The DDL or DML statements to execute
+     */
+    protected void executeBatch(Connection connection, String... statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.addBatch(sql);
+            }
+
+            statement.executeBatch();
+        }
+    }
 }
@@ -3,12 +3,29 @@ package com.songoda.core.database;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+/**
+ * Applies {@link DataMigration}s in order of their revision.
+ * <br>
+ * Every migration runs in its own transaction together with its entry in the migration history,
+ * so a migration is either applied and recorded or not at all.
+ * Servers sharing a database are kept from migrating at the same time with
+ * {@code GET_LOCK} on MySQL and exclusive transactions on SQLite.
+ * <br><br>
+ * Note that MySQL commits DDL statements implicitly, so migrations altering the schema
+ * can only be rolled back partially there.
+ */
 public class DataMigrationManager {
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
     private final List<DataMigration> migrations;
     private final DatabaseConnector databaseConnector;
     private final DataManagerAbstract dataManagerAbstract;
@@ -25,76 +42,204 @@ public class DataMigrationManager {
      */
     public void runMigrations() {
         try (Connection connection = this.databaseConnector.getConnection()) {
-            int currentMigration = -1;
-            boolean migrationsExist;
-
-            String query;
-            if (this.databaseConnector instanceof SQLiteConnector) {
-                query = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
-            } else {
-                query = "SHOW TABLES LIKE ?";
-            }
+            boolean sqlite = this.databaseConnector instanceof SQLiteConnector;
 
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setString(1, this.getMigrationsTableName());
-                migrationsExist = statement.executeQuery().next();
+            if (!sqlite) {
+                acquireLock(connection);
             }
 
-            if (!migrationsExist) {
-                // No migration table exists, create one
-                String createTable = "CREATE TABLE " + this.getMigrationsTableName() + " (migration_version INT NOT NULL)";
-                try (PreparedStatement statement = connection.prepareStatement(createTable)) {
-                    statement.execute();
-                }
+            try {
+                runInTransaction(connection, sqlite, () -> createTables(connection));
+
+                List<DataMigration> sortedMigrations = this.migrations.stream()
+                        .sorted(Comparator.comparingInt(DataMigration::getRevision))
+                        .collect(Collectors.toList());
+
+                verifyChecksums(getAppliedMigrations(connection), sortedMigrations);
 
-                // Insert primary row into migration table
-                String insertRow = "INSERT INTO " + this.getMigrationsTableName() + " VALUES (?)";
-                try (PreparedStatement statement = connection.prepareStatement(insertRow)) {
-                    statement.setInt(1, -1);
-                    statement.execute();
+                for (DataMigration dataMigration : sortedMigrations) {
+                    runInTransaction(connection, sqlite, () -> {
+                        // Checked inside the transaction, another server may have applied it in the meantime
+                        if (getAppliedMigrations(connection).containsKey(dataMigration.getRevision())) {
+                            return;
+                        }
+
+                        dataMigration.migrate(connection, this.dataManagerAbstract.getTablePrefix());
+                        recordMigration(connection, dataMigration);
+                    });
                 }
-            } else {
-                // Grab the current migration version
-                String selectVersion = "SELECT migration_version FROM " + this.getMigrationsTableName();
-                try (PreparedStatement statement = connection.prepareStatement(selectVersion)) {
-                    ResultSet result = statement.executeQuery();
-                    result.next();
-                    currentMigration = result.getInt("migration_version");
+            } finally {
+                if (!sqlite) {
+                    releaseLock(connection);
                 }
             }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+    }
 
-            // Grab required migrations
-            int finalCurrentMigration = currentMigration;
-            List<DataMigration> requiredMigrations = this.migrations.stream()
-                    .filter(x -> x.getRevision() > finalCurrentMigration)
-                    .sorted(Comparator.comparingInt(DataMigration::getRevision))
-                    .collect(Collectors.toList());
+    private void runInTransaction(Connection connection, boolean sqlite, MigrationStep step) throws SQLException {
+        if (sqlite) {
+            // Using raw statements, because the driver would start a deferred transaction on its own
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("BEGIN EXCLUSIVE");
 
-            // Nothing to migrate, abort
-            if (requiredMigrations.isEmpty()) {
-                return;
+                try {
+                    step.run();
+                    statement.execute("COMMIT");
+                } catch (Exception ex) {
+                    statement.execute("ROLLBACK");
+                    throw ex;
+                }
             }
 
-            // Migrate the data
-            for (DataMigration dataMigration : requiredMigrations) {
-                dataMigration.migrate(connection, this.dataManagerAbstract.getTablePrefix());
-            }
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            step.run();
+            connection.commit();
+        } catch (Exception ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
 
-            // Set the new current migration to be the highest migrated to
-            currentMigration = requiredMigrations.stream()
-                    .map(DataMigration::getRevision)
-                    .max(Integer::compareTo)
-                    .orElse(-1);
+    private void createTables(Connection connection) throws SQLException {
+        boolean migrationsExist;
 
-            String updateVersion = "UPDATE " + this.getMigrationsTableName() + " SET migration_version = ?";
-            try (PreparedStatement statement = connection.prepareStatement(updateVersion)) {
-                statement.setInt(1, currentMigration);
+        String query;
+        if (this.databaseConnector instanceof SQLiteConnector) {
+            query = "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?";
+        } else {
+            query = "SHOW TABLES LIKE ?";
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, this.getMigrationsTableName());
+            migrationsExist = statement.executeQuery().next();
+        }
+
+        if (!migrationsExist) {
+            // No migration table exists, create one
+            String createTable = "CREATE TABLE " + this.getMigrationsTableName() + " (migration_version INT NOT NULL)";
+            try (PreparedStatement statement = connection.prepareStatement(createTable)) {
                 statement.execute();
             }
-        } catch (Exception ex) {
-            ex.printStackTrace();
+
+            // Insert primary row into migration table
+            String insertRow = "INSERT INTO " + this.getMigrationsTableName() + " VALUES (?)";
+            try (PreparedStatement statement = connection.prepareStatement(insertRow)) {
+                statement.setInt(1, -1);
+                statement.execute();
+            }
+        }
+
+        String createHistory = "CREATE TABLE IF NOT EXISTS " + this.getHistoryTableName() + " (" +
+                "revision INT NOT NULL PRIMARY KEY, " +
+                "checksum VARCHAR(64) NOT NULL, " +
+                "applied_at BIGINT NOT NULL)";
+        try (PreparedStatement statement = connection.prepareStatement(createHistory)) {
+            statement.execute();
+        }
+    }
+
+    /**
+     * Migrations applied before the history table existed are only known by the highest revision,
+     * so every registered migration up to that revision is treated as applied.
+     *
+     * @return the applied revisions mapped to their checksum, null if unknown
+     */
+    private Map<Integer, String> getAppliedMigrations(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+
+        String selectVersion = "SELECT migration_version FROM " + this.getMigrationsTableName();
+        try (PreparedStatement statement = connection.prepareStatement(selectVersion);
+             ResultSet result = statement.executeQuery()) {
+            int currentMigration = result.next() ? result.getInt("migration_version") : -1;
+
+            for (DataMigration migration : this.migrations) {
+                if (migration.getRevision() <= currentMigration) {
+                    applied.put(migration.getRevision(), null);
+                }
+            }
+        }
+
+        String selectHistory = "SELECT revision, checksum FROM " + this.getHistoryTableName();
+        try (PreparedStatement statement = connection.prepareStatement(selectHistory);
+             ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                applied.put(result.getInt("revision"), result.getString("checksum"));
+            }
+        }
+
+        return applied;
+    }
+
+    private void verifyChecksums(Map<Integer, String> applied, List<DataMigration> migrations) {
+        for (DataMigration migration : migrations) {
+            String checksum = applied.get(migration.getRevision());
+            String expected = getChecksum(migration);
+
+            // empty if the migration, or the one that has been applied, doesn't have a checksum
+            if (checksum != null && !checksum.isEmpty() && !expected.isEmpty() && !checksum.equals(expected)) {
+                this.dataManagerAbstract.plugin.getLogger().warning("Data migration " + migration.getRevision() +
+                        " has been changed after it has been applied (checksum " + checksum +
+                        ", expected " + expected + ")");
+            }
         }
+    }
 
+    private void recordMigration(Connection connection, DataMigration migration) throws SQLException {
+        String insertHistory = "INSERT INTO " + this.getHistoryTableName() + " (revision, checksum, applied_at) VALUES (?, ?, ?)";
+        try (PreparedStatement statement = connection.prepareStatement(insertHistory)) {
+            statement.setInt(1, migration.getRevision());
+            statement.setString(2, getChecksum(migration));
+            statement.setLong(3, System.currentTimeMillis());
+            statement.execute();
+        }
+
+        // Kept up to date for older versions, which only know about the highest revision
+        String updateVersion = "UPDATE " + this.getMigrationsTableName() + " SET migration_version = ? WHERE migration_version < ?";
+        try (PreparedStatement statement = connection.prepareStatement(updateVersion)) {
+            statement.setInt(1, migration.getRevision());
+            statement.setInt(2, migration.getRevision());
+            statement.execute();
+        }
+    }
+
+    private static String getChecksum(DataMigration migration) {
+        String checksum = migration.getChecksum();
+
+        return checksum == null ? "" : checksum;
+    }
+
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, this.getMigrationsTableName());
+            statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next() || result.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the lock on " + this.getMigrationsTableName() +
+                            ", another server is migrating the database");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, this.getMigrationsTableName());
+            statement.execute();
+        } catch (SQLException ex) {
+            ex.printStackTrace();
+        }
     }
 
     /**
@@ -103,4 +248,15 @@ public class DataMigrationManager {
     private String getMigrationsTableName() {
         return this.dataManagerAbstract.getTablePrefix() + "migrations";
     }
+
+    /**
+     * @return the name of the table holding every applied migration
+     */
+    private String getHistoryTableName() {
+        return this.dataManagerAbstract.getTablePrefix() + "migration_history";
+    }
+
+    private interface MigrationStep {
+        void run() throws SQLException;
+    }
 }
@@ -31,4 +31,23 @@ public interface DatabaseConnector {
     }
 
     Connection getConnection();
+
+    /**
+     * Retrieves a connection that is only used for reading.
+     * Connectors that do not distinguish between readers and writers return {@link #getConnection()}.
+     * <br>
+     * The caller is responsible for closing the returned connection.
+     *
+     * @return a connection that may be used for read-only queries
+     */
+    default Connection getReadConnection() {
+        return getConnection();
+    }
+
+    /**
+     * @return the maximum number of connections that may be used in parallel
+     */
+    default int getMaximumPoolSize() {
+        return 1;
+    }
 }
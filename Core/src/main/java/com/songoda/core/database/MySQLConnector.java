@@ -23,6 +23,12 @@ public class MySQLConnector implements DatabaseConnector {
         config.setPassword(password);
         config.setMaximumPoolSize(poolSize);
 
+        // Pooled connections are handed out per task, so statements are cached by the driver instead
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+
         try {
             this.hikari = new HikariDataSource(config);
             this.initializedSuccessfully = true;
@@ -41,6 +47,12 @@ public class MySQLConnector implements DatabaseConnector {
         this.hikari.close();
     }
 
+    @Override
+    public int getMaximumPoolSize() {
+        // the pool is not created if the database could not be reached
+        return this.hikari == null ? 0 : this.hikari.getMaximumPoolSize();
+    }
+
     @Deprecated
     @Override
     public void connect(ConnectionCallback callback) {
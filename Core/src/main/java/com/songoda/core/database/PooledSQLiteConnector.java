@@ -0,0 +1,271 @@
+package com.songoda.core.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.bukkit.plugin.Plugin;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQLite connector that opens the database in WAL journal mode and separates readers from writers.
+ * <br>
+ * Readers share a small pool of read-only connections and can run concurrently with each other and with the writer.
+ * All writes go through exactly one connection, either by borrowing it with {@link #getConnection()}
+ * or by submitting work to the dedicated writer thread with {@link #write(ConnectionCallback)}.
+ * <br><br>
+ * Unlike {@link SQLiteConnector}, connections handed out by this connector are pooled
+ * and <b>have to be closed</b> by the caller to be returned to the pool.
+ */
+public class PooledSQLiteConnector extends SQLiteConnector {
+    private static final int SQLITE_OPEN_READONLY = 0x00000001;
+
+    private final HikariDataSource writer;
+    private final HikariDataSource readers;
+    private final ExecutorService writerThread;
+
+    private boolean initializedSuccessfully;
+
+    public PooledSQLiteConnector(Plugin plugin) {
+        this(plugin, 4);
+    }
+
+    /**
+     * @param plugin         The plugin owning the database file
+     * @param readerPoolSize The maximum number of read-only connections that may be open at once
+     */
+    public PooledSQLiteConnector(Plugin plugin, int readerPoolSize) {
+        super(plugin);
+
+        String poolName = plugin.getDescription().getName() + "-SQLite";
+
+        HikariDataSource writer = null;
+        HikariDataSource readers = null;
+
+        try {
+            // The writer has to be created first, so the database file exists and is switched to WAL mode
+            // before any read-only connection is opened
+            writer = new HikariDataSource(createConfig(poolName + "-Writer", 1, false));
+            readers = new HikariDataSource(createConfig(poolName + "-Reader", Math.max(1, readerPoolSize), true));
+
+            this.initializedSuccessfully = true;
+        } catch (Exception ex) {
+            this.plugin.getLogger().severe("An error occurred creating the SQLite connection pool: " + ex.getMessage());
+
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+
+            this.initializedSuccessfully = false;
+        }
+
+        this.writer = writer;
+        this.readers = readers;
+        this.writerThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, poolName + "-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private HikariConfig createConfig(String poolName, int poolSize, boolean readOnly) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(this.connectionString);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(readOnly ? 1 : poolSize);
+
+        // sqlite-jdbc applies these as pragmas when opening a connection
+        config.addDataSourceProperty("busy_timeout", "5000");
+
+        if (readOnly) {
+            // The driver only accepts Connection#setReadOnly if it matches the mode the connection was opened with
+            config.addDataSourceProperty("open_mode", String.valueOf(SQLITE_OPEN_READONLY));
+            config.setReadOnly(true);
+        } else {
+            config.addDataSourceProperty("journal_mode", "WAL");
+            config.addDataSourceProperty("synchronous", "NORMAL");
+        }
+
+        return config;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return this.initializedSuccessfully;
+    }
+
+    @Override
+    public void closeConnection() {
+        this.writerThread.shutdown();
+
+        try {
+            if (!this.writerThread.awaitTermination(30, TimeUnit.SECONDS)) {
+                this.plugin.getLogger().warning("Timed out waiting for pending SQLite writes to finish");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (this.readers != null) {
+            this.readers.close();
+        }
+
+        if (this.writer != null) {
+            this.writer.close();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public void connect(ConnectionCallback callback) {
+        if (!checkConnected()) {
+            return;
+        }
+
+        try (Connection connection = this.writer.getConnection()) {
+            callback.accept(connection);
+        } catch (Exception ex) {
+            this.plugin.getLogger().severe("An error occurred executing an SQLite query: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Borrows the single writer connection.
+     * Blocks until the connection is returned by its current user.
+     *
+     * @return the writer connection or null if it could not be retrieved
+     */
+    @Override
+    public Connection getConnection() {
+        if (!checkConnected()) {
+            return null;
+        }
+
+        try {
+            return this.writer.getConnection();
+        } catch (Exception ex) {
+            this.plugin.getLogger().severe("An error occurred retrieving the SQLite database connection: " + ex.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Borrows one of the read-only connections.
+     * Read-only connections see the last committed state and are never blocked by the writer.
+     *
+     * @return a read-only connection or null if it could not be retrieved
+     */
+    @Override
+    public Connection getReadConnection() {
+        if (!checkConnected()) {
+            return null;
+        }
+
+        try {
+            return this.readers.getConnection();
+        } catch (Exception ex) {
+            this.plugin.getLogger().severe("An error occurred retrieving the SQLite database connection: " + ex.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Executes a callback with a read-only connection and closes it when finished.
+     *
+     * @param callback The callback to execute once the connection is retrieved
+     */
+    public void read(ConnectionCallback callback) {
+        if (!checkConnected()) {
+            return;
+        }
+
+        try (Connection connection = this.readers.getConnection()) {
+            callback.accept(connection);
+        } catch (Exception ex) {
+            this.plugin.getLogger().severe("An error occurred executing an SQLite query: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Queues a callback on the dedicated writer thread.
+     * The callback runs inside a transaction that is committed when it returns and rolled back if it throws.
+     *
+     * @param callback The callback to execute with the writer connection
+     *
+     * @return a future that completes after the transaction has been committed or rolled back
+     */
+    public CompletableFuture<Void> write(ConnectionCallback callback) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        if (!checkConnected()) {
+            future.completeExceptionally(new IllegalStateException("The SQLite connection pool has not been created"));
+            return future;
+        }
+
+        this.writerThread.execute(() -> {
+            try (Connection connection = this.writer.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+
+                try {
+                    callback.accept(connection);
+                    connection.commit();
+                } catch (Exception ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+
+                future.complete(null);
+            } catch (Throwable th) {
+                future.completeExceptionally(th);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * @return true if the connection pools have been created, logs an error otherwise
+     */
+    private boolean checkConnected() {
+        if (this.writer == null || this.readers == null) {
+            this.plugin.getLogger().severe("Not connected to the SQLite database, the connection pool could not be created");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the number of read-only connections plus the writer connection
+     */
+    @Override
+    public int getMaximumPoolSize() {
+        return this.readers == null ? 1 : this.readers.getMaximumPoolSize() + 1;
+    }
+
+    /**
+     * @return the number of read-only connections currently handed out
+     */
+    public int getActiveReaders() {
+        return this.readers == null ? 0 : this.readers.getHikariPoolMXBean().getActiveConnections();
+    }
+
+    /**
+     * @return the number of threads waiting for the writer connection
+     */
+    public int getWaitingWriters() {
+        return this.writer == null ? 0 : this.writer.getHikariPoolMXBean().getThreadsAwaitingConnection();
+    }
+}
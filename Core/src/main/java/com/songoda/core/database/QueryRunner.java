@@ -0,0 +1,232 @@
+package com.songoda.core.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Typed query helper for a single {@link Connection}.
+ * <br>
+ * Prepared statements are cached by their SQL for as long as the runner is open,
+ * so repeatedly executing the same query (e.g. once per row) only parses the SQL once.
+ * Closing the runner closes the cached statements but not the connection.
+ * <br><br>
+ * Parameters are bound with {@link PreparedStatement#setObject(int, Object)},
+ * except for {@link UUID}s which are bound as string and {@link Enum}s which are bound by their name.
+ *
+ * <pre>{@code
+ * try (Connection connection = databaseConnector.getConnection();
+ *      QueryRunner runner = new QueryRunner(connection)) {
+ *     List<String> names = runner.query("SELECT name FROM players WHERE level > ?", result -> result.getString("name"), 10);
+ *     long id = runner.insert("INSERT INTO players (name) VALUES (?)", "Notch");
+ * }
+ * }</pre>
+ */
+public class QueryRunner implements AutoCloseable {
+    private static final int DEFAULT_CACHE_SIZE = 32;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+
+    public QueryRunner(Connection connection) {
+        this(connection, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param connection The connection to run the queries on
+     * @param cacheSize  The maximum number of prepared statements to keep open
+     */
+    public QueryRunner(Connection connection, int cacheSize) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, .75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= cacheSize) {
+                    return false;
+                }
+
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Runs a query and maps every row of the result
+     *
+     * @param sql    The query to execute
+     * @param mapper Maps the current row of the result set to an object
+     * @param params The parameters of the query
+     *
+     * @return the mapped rows in the order they were returned
+     */
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PreparedStatement statement = prepare(sql, false, params);
+
+        List<T> rows = new ArrayList<>();
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                rows.add(mapper.map(result));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Runs a query and maps the first row of the result
+     *
+     * @param sql    The query to execute
+     * @param mapper Maps the current row of the result set to an object
+     * @param params The parameters of the query
+     *
+     * @return the mapped first row or null if the result is empty
+     */
+    public <T> T queryFirst(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PreparedStatement statement = prepare(sql, false, params);
+
+        try (ResultSet result = statement.executeQuery()) {
+            return result.next() ? mapper.map(result) : null;
+        }
+    }
+
+    /**
+     * Executes an INSERT, UPDATE, DELETE or DDL statement
+     *
+     * @param sql    The statement to execute
+     * @param params The parameters of the statement
+     *
+     * @return the number of affected rows
+     */
+    public int update(String sql, Object... params) throws SQLException {
+        return prepare(sql, false, params).executeUpdate();
+    }
+
+    /**
+     * Executes an INSERT statement and returns the key generated by the database.
+     * Unlike {@link DataManagerAbstract#lastInsertedId(Connection, String)}
+     * this is not affected by inserts from other connections.
+     *
+     * @param sql    The statement to execute
+     * @param params The parameters of the statement
+     *
+     * @return the generated key of the inserted row or -1 if none has been generated
+     */
+    public long insert(String sql, Object... params) throws SQLException {
+        PreparedStatement statement = prepare(sql, true, params);
+        statement.executeUpdate();
+
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            return keys.next() ? keys.getLong(1) : -1;
+        }
+    }
+
+    /**
+     * Executes a statement once for every set of parameters as a single batch
+     *
+     * @param sql  The statement to execute
+     * @param rows The parameters of the statement for every row
+     *
+     * @return the number of affected rows for every set of parameters
+     *
+     * @see PreparedStatement#executeBatch()
+     */
+    public int[] batch(String sql, Iterable<Object[]> rows) throws SQLException {
+        PreparedStatement statement = prepare(sql, false);
+
+        Iterator<Object[]> iterator = rows.iterator();
+        if (!iterator.hasNext()) {
+            return new int[0];
+        }
+
+        while (iterator.hasNext()) {
+            bind(statement, iterator.next());
+            statement.addBatch();
+        }
+
+        return statement.executeBatch();
+    }
+
+    /**
+     * Returns a cached prepared statement for the given SQL, preparing it if needed.
+     * The statement is owned by this runner and must not be closed by the caller.
+     *
+     * @param sql                 The SQL to prepare
+     * @param returnGeneratedKeys If the statement should make generated keys available
+     * @param params              The parameters to bind to the statement
+     *
+     * @return the prepared statement with the parameters bound
+     */
+    public PreparedStatement prepare(String sql, boolean returnGeneratedKeys, Object... params) throws SQLException {
+        String cacheKey = returnGeneratedKeys ? "K:" + sql : sql;
+
+        PreparedStatement statement = this.statements.get(cacheKey);
+        if (statement == null || statement.isClosed()) {
+            statement = returnGeneratedKeys
+                    ? this.connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : this.connection.prepareStatement(sql);
+
+            this.statements.put(cacheKey, statement);
+        } else {
+            statement.clearParameters();
+        }
+
+        bind(statement, params);
+        return statement;
+    }
+
+    /**
+     * @return the connection this runner executes its statements on
+     */
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Closes all cached statements. The connection stays open.
+     */
+    @Override
+    public void close() {
+        for (PreparedStatement statement : this.statements.values()) {
+            closeQuietly(statement);
+        }
+
+        this.statements.clear();
+    }
+
+    static void bind(PreparedStatement statement, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; ++i) {
+            Object param = params[i];
+
+            if (param instanceof UUID) {
+                param = param.toString();
+            } else if (param instanceof Enum) {
+                param = ((Enum<?>) param).name();
+            }
+
+            statement.setObject(i + 1, param);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /**
+     * Maps the current row of a {@link ResultSet} to an object
+     */
+    public interface RowMapper<T> {
+        T map(ResultSet result) throws SQLException;
+    }
+}
@@ -8,8 +8,8 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class SQLiteConnector implements DatabaseConnector {
-    private final Plugin plugin;
-    private final String connectionString;
+    protected final Plugin plugin;
+    protected final String connectionString;
     private Connection connection;
 
     public SQLiteConnector(Plugin plugin) {
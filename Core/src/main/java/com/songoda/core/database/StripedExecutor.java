@@ -0,0 +1,181 @@
+package com.songoda.core.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor that runs tasks sharing a key in the order they were submitted,
+ * while tasks with different keys may run in parallel.
+ * <br>
+ * Every key is mapped to one of a fixed number of stripes, each backed by its own thread.
+ * Tasks submitted without a key all go to the first stripe and therefore behave like a single-threaded executor.
+ */
+public class StripedExecutor extends AbstractExecutorService {
+    private final ThreadPoolExecutor[] stripes;
+
+    private final AtomicLong pendingTasks = new AtomicLong();
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+
+    /**
+     * @param name        The name used as prefix for the threads of this executor
+     * @param stripeCount The number of stripes and thus the maximum number of tasks running in parallel
+     */
+    public StripedExecutor(String name, int stripeCount) {
+        this.stripes = new ThreadPoolExecutor[Math.max(1, stripeCount)];
+
+        for (int i = 0; i < this.stripes.length; ++i) {
+            String threadName = name + "-" + i;
+
+            this.stripes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, threadName));
+        }
+    }
+
+    /**
+     * Runs a task on the stripe used for tasks without a key
+     */
+    @Override
+    public void execute(Runnable command) {
+        execute(null, command);
+    }
+
+    /**
+     * Runs a task after all previously submitted tasks with the same key have completed
+     *
+     * @param key     The key used to order the task, null for the default stripe
+     * @param command The task to run
+     */
+    public void execute(Object key, Runnable command) {
+        long submitTime = System.nanoTime();
+
+        this.pendingTasks.incrementAndGet();
+
+        try {
+            getStripe(key).execute(() -> {
+                long startTime = System.nanoTime();
+                this.totalWaitNanos.add(startTime - submitTime);
+
+                try {
+                    command.run();
+                } finally {
+                    this.totalRunNanos.add(System.nanoTime() - startTime);
+                    this.completedTasks.increment();
+                    this.pendingTasks.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException ex) {
+            this.pendingTasks.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    private ThreadPoolExecutor getStripe(Object key) {
+        if (key == null) {
+            return this.stripes[0];
+        }
+
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+
+        return this.stripes[(hash & 0x7FFFFFFF) % this.stripes.length];
+    }
+
+    /**
+     * @return the number of stripes of this executor
+     */
+    public int getStripeCount() {
+        return this.stripes.length;
+    }
+
+    /**
+     * @return the number of tasks that have been submitted but not completed yet
+     */
+    public long getPendingTaskCount() {
+        return this.pendingTasks.get();
+    }
+
+    /**
+     * @return the number of tasks that have completed, successfully or exceptionally
+     */
+    public long getCompletedTaskCount() {
+        return this.completedTasks.sum();
+    }
+
+    /**
+     * @return the average time in milliseconds a completed task spent waiting in the queue
+     */
+    public double getAverageWaitTime() {
+        long completed = this.completedTasks.sum();
+        return completed == 0 ? 0 : this.totalWaitNanos.sum() / (double) completed / 1_000_000D;
+    }
+
+    /**
+     * @return the average time in milliseconds a completed task took to run
+     */
+    public double getAverageExecutionTime() {
+        long completed = this.completedTasks.sum();
+        return completed == 0 ? 0 : this.totalRunNanos.sum() / (double) completed / 1_000_000D;
+    }
+
+    @Override
+    public void shutdown() {
+        for (ThreadPoolExecutor stripe : this.stripes) {
+            stripe.shutdown();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> remaining = new ArrayList<>();
+
+        for (ThreadPoolExecutor stripe : this.stripes) {
+            remaining.addAll(stripe.shutdownNow());
+        }
+
+        this.pendingTasks.addAndGet(-remaining.size());
+        return remaining;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        for (ThreadPoolExecutor stripe : this.stripes) {
+            if (!stripe.isShutdown()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (ThreadPoolExecutor stripe : this.stripes) {
+            if (!stripe.isTerminated()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        for (ThreadPoolExecutor stripe : this.stripes) {
+            if (!stripe.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
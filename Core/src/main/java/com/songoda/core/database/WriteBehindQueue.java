@@ -0,0 +1,234 @@
+package com.songoda.core.database;
+
+import org.bukkit.Bukkit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Collects row updates and writes them to the database in batches.
+ * <br>
+ * Updates are keyed by table and primary key. Queueing another update for a row that has not been written yet
+ * replaces the pending one, so only the latest state of each row is written.
+ * Pending updates are flushed as a single transaction once {@code maxBatchSize} rows are pending
+ * or {@code flushDelayTicks} after the first update has been queued, whichever happens first.
+ * <br><br>
+ * Rows sharing the same SQL are written with one {@link PreparedStatement} using
+ * {@link PreparedStatement#addBatch()} and {@link PreparedStatement#executeBatch()}.
+ * Statements are executed in the order in which their SQL was first queued, so updates
+ * should be self-contained (e.g. upserts or deletes) and not rely on the order of other rows.
+ */
+public class WriteBehindQueue {
+    private final DataManagerAbstract dataManager;
+    private final int maxBatchSize;
+    private final long flushDelayTicks;
+
+    private final Object lock = new Object();
+    private Map<RowKey, RowUpdate> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    private long totalQueued;
+    private long totalWritten;
+
+    /**
+     * @param dataManager     The data manager whose connector and async pool are used
+     * @param maxBatchSize    The amount of pending rows that triggers a flush
+     * @param flushDelayTicks The maximum time in ticks a queued update waits before it is flushed
+     */
+    public WriteBehindQueue(DataManagerAbstract dataManager, int maxBatchSize, long flushDelayTicks) {
+        this.dataManager = dataManager;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flushDelayTicks = Math.max(1, flushDelayTicks);
+    }
+
+    /**
+     * Queues an update for a row, replacing any pending update for the same row.
+     *
+     * @param table      The table the row belongs to
+     * @param primaryKey The primary key of the row
+     * @param sql        The statement to execute for the row
+     * @param binder     Sets the parameters of the statement for this row
+     */
+    public void queue(String table, Object primaryKey, String sql, StatementBinder binder) {
+        boolean flushNow = false;
+        boolean scheduleFlush = false;
+
+        synchronized (this.lock) {
+            this.pending.put(new RowKey(table, primaryKey), new RowUpdate(sql, binder));
+            ++this.totalQueued;
+
+            if (this.pending.size() >= this.maxBatchSize) {
+                flushNow = true;
+            } else if (!this.flushScheduled) {
+                this.flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+
+        if (flushNow) {
+            flushAsync();
+        } else if (scheduleFlush) {
+            Bukkit.getScheduler().runTaskLaterAsynchronously(this.dataManager.plugin, this::flushAsync, this.flushDelayTicks);
+        }
+    }
+
+    /**
+     * Flushes on the async pool, or on the calling thread once the pool has been shut down
+     */
+    private void flushAsync() {
+        if (!this.dataManager.asyncPool.isShutdown()) {
+            try {
+                this.dataManager.runAsync(this::flush);
+                return;
+            } catch (RejectedExecutionException ignore) {
+                // shut down after the check
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * Writes all pending updates in a single transaction on the calling thread.
+     * If the transaction fails, it is rolled back and the updates are discarded.
+     */
+    public void flush() {
+        Map<RowKey, RowUpdate> updates;
+
+        synchronized (this.lock) {
+            this.flushScheduled = false;
+
+            if (this.pending.isEmpty()) {
+                return;
+            }
+
+            updates = this.pending;
+            this.pending = new LinkedHashMap<>();
+        }
+
+        // Group rows by statement so each statement is only prepared once
+        Map<String, List<StatementBinder>> batches = new LinkedHashMap<>();
+        for (RowUpdate update : updates.values()) {
+            batches.computeIfAbsent(update.sql, k -> new ArrayList<>()).add(update.binder);
+        }
+
+        try (Connection connection = this.dataManager.databaseConnector.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            boolean finished = false;
+            connection.setAutoCommit(false);
+
+            try {
+                for (Map.Entry<String, List<StatementBinder>> batch : batches.entrySet()) {
+                    try (PreparedStatement statement = connection.prepareStatement(batch.getKey())) {
+                        for (StatementBinder binder : batch.getValue()) {
+                            binder.bind(statement);
+                            statement.addBatch();
+                        }
+
+                        statement.executeBatch();
+                    }
+                }
+
+                connection.commit();
+                finished = true;
+            } catch (Throwable th) {
+                // binders are caller code and may throw anything, none of the executed batches may be kept
+                connection.rollback();
+                finished = true;
+                throw th;
+            } finally {
+                // restoring auto-commit commits an open transaction, so only do it once it has been committed or rolled back
+                if (finished) {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+
+            synchronized (this.lock) {
+                this.totalWritten += updates.size();
+            }
+        } catch (SQLException | RuntimeException ex) {
+            this.dataManager.plugin.getLogger().severe("An error occurred writing " + updates.size() + " queued rows: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the amount of rows waiting to be written
+     */
+    public int getPendingCount() {
+        synchronized (this.lock) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+     * @return the amount of updates queued since creation, including the ones that have been coalesced
+     */
+    public long getTotalQueued() {
+        synchronized (this.lock) {
+            return this.totalQueued;
+        }
+    }
+
+    /**
+     * @return the amount of rows that have been written successfully since creation
+     */
+    public long getTotalWritten() {
+        synchronized (this.lock) {
+            return this.totalWritten;
+        }
+    }
+
+    /**
+     * Sets the parameters of a {@link PreparedStatement} for a single row
+     */
+    public interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private static final class RowUpdate {
+        private final String sql;
+        private final StatementBinder binder;
+
+        private RowUpdate(String sql, StatementBinder binder) {
+            this.sql = sql;
+            this.binder = binder;
+        }
+    }
+
+    private static final class RowKey {
+        private final String table;
+        private final Object primaryKey;
+
+        private RowKey(String table, Object primaryKey) {
+            this.table = table;
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof RowKey)) {
+                return false;
+            }
+
+            RowKey other = (RowKey) obj;
+            return this.table.equals(other.table) && Objects.equals(this.primaryKey, other.primaryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.table.hashCode() + Objects.hashCode(this.primaryKey);
+        }
+    }
+}
@@ -123,6 +123,17 @@ public class AnvilGui extends Gui {
         return inventory;
     }
 
+    /**
+     * Writes straight through to the anvil, without skipping unchanged items. <br>
+     * The server rewrites the output while the player is typing, so what the anvil shows is never known.
+     */
+    @Override
+    protected void pushItem(int cell, @Nullable ItemStack item) {
+        if (inventory != null && cell >= 0 && cell < inventory.getSize()) {
+            inventory.setItem(cell, item);
+        }
+    }
+
     @Override
     protected void createInventory() {
         AnvilCore nms = NmsManager.getAnvil();
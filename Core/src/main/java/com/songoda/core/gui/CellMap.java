@@ -0,0 +1,134 @@
+package com.songoda.core.gui;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Values of GUI cells kept in flat arrays indexed by the cell, instead of a map of boxed cell numbers. <br>
+ * Some GUIs use negative cells for buttons outside of the inventory, these are kept in a second array.
+ *
+ * @param <T> the type of the values
+ */
+public class CellMap<T> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] cells = EMPTY;
+    private Object[] negativeCells = EMPTY;
+    // values can be null, so the cells that have been set are tracked separately
+    private final BitSet present = new BitSet();
+    private final BitSet negativePresent = new BitSet();
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get(int cell) {
+        if (cell < 0) {
+            return -cell < negativeCells.length ? (T) negativeCells[-cell] : null;
+        }
+
+        return cell < cells.length ? (T) cells[cell] : null;
+    }
+
+    public boolean containsKey(int cell) {
+        return cell < 0 ? negativePresent.get(-cell) : present.get(cell);
+    }
+
+    /**
+     * @return the previous value of the cell
+     */
+    @Nullable
+    public T put(int cell, @Nullable T value) {
+        T previous = get(cell);
+
+        if (cell < 0) {
+            negativeCells = ensureCapacity(negativeCells, -cell);
+            negativeCells[-cell] = value;
+            negativePresent.set(-cell);
+        } else {
+            cells = ensureCapacity(cells, cell);
+            cells[cell] = value;
+            present.set(cell);
+        }
+
+        return previous;
+    }
+
+    /**
+     * @return the previous value of the cell
+     */
+    @Nullable
+    public T remove(int cell) {
+        if (!containsKey(cell)) {
+            return null;
+        }
+
+        T previous = get(cell);
+
+        if (cell < 0) {
+            negativeCells[-cell] = null;
+            negativePresent.clear(-cell);
+        } else {
+            cells[cell] = null;
+            present.clear(cell);
+        }
+
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(cells, null);
+        Arrays.fill(negativeCells, null);
+        present.clear();
+        negativePresent.clear();
+    }
+
+    public boolean isEmpty() {
+        return present.isEmpty() && negativePresent.isEmpty();
+    }
+
+    public int size() {
+        return present.cardinality() + negativePresent.cardinality();
+    }
+
+    /**
+     * @param def the value to return if no cell has been set
+     *
+     * @return the highest cell that has been set
+     */
+    public int getLastCell(int def) {
+        if (!present.isEmpty()) {
+            return present.length() - 1;
+        }
+
+        return negativePresent.isEmpty() ? def : -negativePresent.nextSetBit(0);
+    }
+
+    /**
+     * @return all cells that have been set, in ascending order
+     */
+    @NotNull
+    public int[] getCells() {
+        int[] result = new int[size()];
+        int i = 0;
+
+        for (int cell = negativePresent.length() - 1; cell >= 0; cell = negativePresent.previousSetBit(cell - 1)) {
+            result[i++] = -cell;
+        }
+
+        for (int cell = present.nextSetBit(0); cell >= 0; cell = present.nextSetBit(cell + 1)) {
+            result[i++] = cell;
+        }
+
+        return result;
+    }
+
+    private static Object[] ensureCapacity(Object[] values, int index) {
+        if (index < values.length) {
+            return values;
+        }
+
+        return Arrays.copyOf(values, Math.max(index + 1, Math.max(9, values.length * 2)));
+    }
+}
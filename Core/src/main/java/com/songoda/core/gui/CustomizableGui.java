@@ -16,19 +16,39 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * GUI whose items can be moved, replaced or disabled by server owners in {@code gui/<key>.yml}. <br>
+ * Every file is parsed once into a layout that is shared by all GUIs with the same key,
+ * the layout is reloaded in the background when the file is changed.
+ * GUIs that have already been created keep the layout they have been created with.
+ */
 public class CustomizableGui extends Gui {
     private static boolean showGuiKeys = false;
     private int activationCount = 0;
 
-    private static final Map<String, CustomContent> loadedGuis = new HashMap<>();
+    private static final Map<File, CustomContent> loadedGuis = new ConcurrentHashMap<>();
+    private static final Map<File, LayoutWatcher> layoutWatchers = new HashMap<>();
     private final CustomContent customContent;
 
     public CustomizableGui(Plugin plugin, String guiKey) {
@@ -38,101 +58,173 @@ public class CustomizableGui extends Gui {
     public CustomizableGui(@NotNull Plugin plugin, @NotNull String guiKey, @Nullable Gui parent) {
         super(parent);
 
-        if (!loadedGuis.containsKey(guiKey) || showGuiKeys) {
-            File localeFolder = new File(plugin.getDataFolder(), "gui/");
+        this.customContent = getContent(plugin, guiKey);
 
-            if (!localeFolder.exists()) {
-                localeFolder.mkdir();
+        setPrivateDefaultAction(event -> {
+            if (event.clickType == ClickType.SHIFT_RIGHT) {
+                activationCount++;
             }
 
-            Config config = new Config(plugin, "gui/" + guiKey + ".yml");
-            config.load();
-
-            if (!config.isConfigurationSection("overrides")) {
-                config.setDefault("overrides.example.item", CompatibleMaterial.STONE.name(),
-                                "This is the icon material you would like to replace",
-                                "the current material with.")
-                        .setDefault("overrides.example.position", 5,
-                                "This is the current position of the icon you would like to move.",
-                                "The number represents the cell the icon currently resides in.")
-                        .setDefaultComment("overrides.example",
-                                "This is just an example and does not override to any items",
-                                "in this GUI.")
-                        .setDefaultComment("overrides",
-                                "For information on how to apply overrides please visit",
-                                "https://wiki.songoda.com/Gui");
-
-                config.saveChanges();
+            if (activationCount >= 8 && event.player.hasPermission("songoda.admin")) {
+                showGuiKeys = !showGuiKeys;
+                activationCount = 0;
+
+                event.player.sendMessage("Gui keys " + (showGuiKeys ? "enabled" : "disabled") + ".");
             }
+        });
 
-            if (!config.isConfigurationSection("disabled")) {
-                config.setDefault("disabled", Arrays.asList("example3", "example4", "example5"),
-                        "All keys on this list will be disabled. You can add any items key here",
-                        "if you no longer want that item in the GUI.");
+        if (customContent.isButtonCustomized("__DEFAULT__")) {
+            blankItem = GuiUtils.getBorderItem(customContent.getCustomizedButton("__DEFAULT__").item);
+        }
+    }
 
-                config.saveChanges();
-            }
+    private static CustomContent getContent(Plugin plugin, String guiKey) {
+        File folder = new File(plugin.getDataFolder(), "gui");
+        File file = new File(folder, guiKey + ".yml").getAbsoluteFile();
 
-            CustomContent customContent = loadedGuis.computeIfAbsent(guiKey, g -> new CustomContent(guiKey));
-            loadedGuis.put(guiKey, customContent);
-            this.customContent = customContent;
+        CustomContent customContent = loadedGuis.get(file);
+        if (customContent != null) {
+            return customContent;
+        }
 
-            int rows = config.getInt("overrides.__ROWS__", -1);
-            if (rows != -1) {
-                customContent.setRows(rows);
-            }
+        customContent = loadedGuis.computeIfAbsent(file, key -> loadContent(plugin, guiKey, folder));
+        watchLayouts(plugin, file.getParentFile());
 
-            for (ConfigSection section : config.getSections("overrides")) {
-                if (section.contains("row") ||
-                        section.contains("col") ||
-                        section.contains("mirrorrow") ||
-                        section.contains("mirrorcol")) {
-                    if (section.contains("mirrorrow") || section.contains("mirrorcol")) {
-                        customContent.addButton(section.getNodeKey(), section.getInt("row", -1),
-                                section.getInt("col", -1),
-                                section.getBoolean("mirrorrow", false),
-                                section.getBoolean("mirrorcol", false),
-                                section.isSet("item") ? CompatibleMaterial.getMaterial(section.getString("item")) : null);
-                    } else {
-                        customContent.addButton(section.getNodeKey(), section.getInt("row", -1),
-                                section.getInt("col", -1),
-                                section.getString("title", null),
-                                section.isSet("lore") ? section.getStringList("lore") : null,
-                                section.isSet("item") ? CompatibleMaterial.getMaterial(section.getString("item")) : null);
-                    }
+        return customContent;
+    }
+
+    private static CustomContent loadContent(Plugin plugin, String guiKey, File folder) {
+        if (!folder.exists()) {
+            folder.mkdir();
+        }
+
+        Config config = new Config(plugin, "gui/" + guiKey + ".yml");
+        config.load();
+
+        if (!config.isConfigurationSection("overrides")) {
+            config.setDefault("overrides.example.item", CompatibleMaterial.STONE.name(),
+                            "This is the icon material you would like to replace",
+                            "the current material with.")
+                    .setDefault("overrides.example.position", 5,
+                            "This is the current position of the icon you would like to move.",
+                            "The number represents the cell the icon currently resides in.")
+                    .setDefaultComment("overrides.example",
+                            "This is just an example and does not override to any items",
+                            "in this GUI.")
+                    .setDefaultComment("overrides",
+                            "For information on how to apply overrides please visit",
+                            "https://wiki.songoda.com/Gui");
+
+            config.saveChanges();
+        }
+
+        if (!config.isConfigurationSection("disabled")) {
+            config.setDefault("disabled", Arrays.asList("example3", "example4", "example5"),
+                    "All keys on this list will be disabled. You can add any items key here",
+                    "if you no longer want that item in the GUI.");
+
+            config.saveChanges();
+        }
+
+        return compileContent(config);
+    }
+
+    private static CustomContent compileContent(Config config) {
+        CustomContent customContent = new CustomContent();
+
+        int rows = config.getInt("overrides.__ROWS__", -1);
+        if (rows != -1) {
+            customContent.setRows(rows);
+        }
+
+        for (ConfigSection section : config.getSections("overrides")) {
+            if (section.contains("row") ||
+                    section.contains("col") ||
+                    section.contains("mirrorrow") ||
+                    section.contains("mirrorcol")) {
+                if (section.contains("mirrorrow") || section.contains("mirrorcol")) {
+                    customContent.addButton(section.getNodeKey(), section.getInt("row", -1),
+                            section.getInt("col", -1),
+                            section.getBoolean("mirrorrow", false),
+                            section.getBoolean("mirrorcol", false),
+                            section.isSet("item") ? CompatibleMaterial.getMaterial(section.getString("item")) : null);
                 } else {
-                    customContent.addButton(section.getNodeKey(), section.getString("position", "-1"),
+                    customContent.addButton(section.getNodeKey(), section.getInt("row", -1),
+                            section.getInt("col", -1),
                             section.getString("title", null),
                             section.isSet("lore") ? section.getStringList("lore") : null,
                             section.isSet("item") ? CompatibleMaterial.getMaterial(section.getString("item")) : null);
                 }
+            } else {
+                customContent.addButton(section.getNodeKey(), section.getString("position", "-1"),
+                        section.getString("title", null),
+                        section.isSet("lore") ? section.getStringList("lore") : null,
+                        section.isSet("item") ? CompatibleMaterial.getMaterial(section.getString("item")) : null);
             }
+        }
 
-            for (String disabled : config.getStringList("disabled")) {
-                customContent.disableButton(disabled);
-            }
-        } else {
-            customContent = loadedGuis.get(guiKey);
+        for (String disabled : config.getStringList("disabled")) {
+            customContent.disableButton(disabled);
         }
 
-        setPrivateDefaultAction(event -> {
-            if (event.clickType == ClickType.SHIFT_RIGHT) {
-                activationCount++;
+        customContent.compile();
+
+        return customContent;
+    }
+
+    private static void watchLayouts(Plugin plugin, File folder) {
+        synchronized (layoutWatchers) {
+            if (layoutWatchers.containsKey(folder)) {
+                return;
             }
 
-            if (activationCount >= 8 && event.player.hasPermission("songoda.admin")) {
-                showGuiKeys = !showGuiKeys;
-                activationCount = 0;
+            LayoutWatcher watcher = null;
 
-                event.player.sendMessage("Gui keys " + (showGuiKeys ? "enabled" : "disabled") + ".");
+            try {
+                watcher = new LayoutWatcher(plugin, folder);
+
+                Thread thread = new Thread(watcher, plugin.getName() + "-GuiLayoutWatcher");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException | UnsupportedOperationException ex) {
+                plugin.getLogger().log(Level.WARNING, "Changes to " + folder + " will not be loaded until the server restarts", ex);
             }
-        });
 
-        if (customContent.isButtonCustomized("__DEFAULT__")) {
-            blankItem = GuiUtils.getBorderItem(customContent.getCustomizedButton("__DEFAULT__").item);
+            // don't try again for every opened GUI if watching is not supported
+            layoutWatchers.put(folder, watcher);
         }
     }
 
+    /**
+     * Stops watching the GUI files of a plugin and forgets their layouts. <br>
+     * Called when the plugin is disabled, so the watcher threads don't keep the plugin loaded.
+     *
+     * @param plugin the plugin to unload the layouts of
+     */
+    public static void unloadLayouts(@NotNull Plugin plugin) {
+        Path folder = new File(plugin.getDataFolder(), "gui").getAbsoluteFile().toPath();
+        List<LayoutWatcher> watchers = new ArrayList<>();
+
+        synchronized (layoutWatchers) {
+            Iterator<Map.Entry<File, LayoutWatcher>> iterator = layoutWatchers.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Map.Entry<File, LayoutWatcher> entry = iterator.next();
+
+                if (entry.getKey().toPath().startsWith(folder)) {
+                    if (entry.getValue() != null) {
+                        watchers.add(entry.getValue());
+                    }
+
+                    iterator.remove();
+                }
+            }
+        }
+
+        watchers.forEach(LayoutWatcher::close);
+        loadedGuis.keySet().removeIf(file -> file.toPath().startsWith(folder));
+    }
+
     @NotNull
     public Gui setRows(int rows) {
         int customRows = customContent.getRows();
@@ -153,16 +245,8 @@ public class CustomizableGui extends Gui {
     }
 
     private void applyCustomItems() {
-        for (CustomButton customButton : customContent.getCustomButtons().values()) {
-            if (customButton instanceof MirrorFill) {
-                applyCustomItem(customButton);
-            }
-        }
-
-        for (CustomButton customButton : customContent.getCustomButtons().values()) {
-            if (!(customButton instanceof MirrorFill)) {
-                applyCustomItem(customButton);
-            }
+        for (CustomButton customButton : customContent.getCustomButtons()) {
+            applyCustomItem(customButton);
         }
     }
 
@@ -175,8 +259,8 @@ public class CustomizableGui extends Gui {
             } else {
                 setItem(customButton.key, customButton.row, customButton.col, customButton.createItem());
             }
-        } else {
-            for (Integer position : customButton.positions) {
+        } else if (customButton.positions != null) {
+            for (int position : customButton.positions) {
                 setItem(customButton.key, position, customButton.createItem());
             }
         }
@@ -199,7 +283,7 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui setItem(@NotNull String key, int cell, @Nullable ItemStack item) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
@@ -209,7 +293,7 @@ public class CustomizableGui extends Gui {
 
         if (customContent.isButtonCustomized(key)) {
             CustomButton btn = customContent.getCustomizedButton(key);
-            cells = btn.applyPosition(cell);
+            cells = btn.applyPosition(cell, inventoryType.columns);
             btn.applyItem(item);
         }
 
@@ -256,14 +340,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui highlightItem(@NotNull String key, int cell) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -286,14 +370,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui removeHighlight(@NotNull String key, int cell) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -325,14 +409,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItemLore(@NotNull String key, int cell, @NotNull String... lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -353,14 +437,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItemLore(@NotNull String key, int cell, @Nullable List<String> lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -381,14 +465,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItemName(@NotNull String key, int cell, @Nullable String name) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -427,7 +511,7 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItem(@NotNull String key, int cell, @NotNull String name, @Nullable List<String> lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
@@ -436,7 +520,7 @@ public class CustomizableGui extends Gui {
         lore = applyShowGuiKeys(key, lore);
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -457,14 +541,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItem(@NotNull String key, int cell, @NotNull ItemStack itemTo, @Nullable String title, @NotNull String... lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -485,14 +569,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItem(@NotNull String key, int cell, @NotNull CompatibleMaterial itemTo, @Nullable String title, @Nullable String... lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -513,14 +597,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItem(@NotNull String key, int cell, @NotNull ItemStack itemTo, @Nullable String title, @Nullable List<String> lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -541,14 +625,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui updateItem(@NotNull String key, int cell, @NotNull CompatibleMaterial itemTo, @Nullable String title, @Nullable List<String> lore) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -604,14 +688,14 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui clearActions(@NotNull String key, int cell) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -632,7 +716,7 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui setButton(@NotNull String key, int cell, ItemStack item, @Nullable Clickable action) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
@@ -642,7 +726,7 @@ public class CustomizableGui extends Gui {
 
         if (customContent.isButtonCustomized(key)) {
             CustomButton btn = customContent.getCustomizedButton(key);
-            cells = btn.applyPosition(cell);
+            cells = btn.applyPosition(cell, inventoryType.columns);
             btn.applyItem(item);
         }
 
@@ -665,7 +749,7 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui setButton(@NotNull String key, int cell, @Nullable ItemStack item, @Nullable ClickType type, @Nullable Clickable action) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return this;
@@ -675,7 +759,7 @@ public class CustomizableGui extends Gui {
 
         if (customContent.isButtonCustomized(key)) {
             CustomButton btn = customContent.getCustomizedButton(key);
-            cells = btn.applyPosition(cell);
+            cells = btn.applyPosition(cell, inventoryType.columns);
             btn.applyItem(item);
         }
 
@@ -696,14 +780,14 @@ public class CustomizableGui extends Gui {
     }
 
     protected void setConditional(@NotNull String key, int cell, @Nullable ClickType type, @Nullable Clickable action) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         if (customContent.isButtonDisabled(key)) {
             return;
         }
 
         if (customContent.isButtonCustomized(key)) {
-            cells = customContent.getCustomizedButton(key).applyPosition(cell);
+            cells = customContent.getCustomizedButton(key).applyPosition(cell, inventoryType.columns);
         }
 
         for (int c : cells) {
@@ -733,13 +817,13 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui setNextPage(int cell, @NotNull ItemStack item) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         applyShowGuiKeys("__NEXT__", item);
 
         if (customContent.isButtonCustomized("__NEXT__")) {
             CustomButton btn = customContent.getCustomizedButton("__NEXT__");
-            cells = btn.applyPosition(cell);
+            cells = btn.applyPosition(cell, inventoryType.columns);
             btn.applyItem(item);
         }
 
@@ -759,13 +843,13 @@ public class CustomizableGui extends Gui {
 
     @NotNull
     public Gui setPrevPage(int cell, @NotNull ItemStack item) {
-        List<Integer> cells = Collections.singletonList(cell);
+        int[] cells = {cell};
 
         applyShowGuiKeys("__PREV__", item);
 
         if (customContent.isButtonCustomized("__PREV__")) {
             CustomButton btn = customContent.getCustomizedButton("__PREV__");
-            cells = btn.applyPosition(cell);
+            cells = btn.applyPosition(cell, inventoryType.columns);
             btn.applyItem(item);
         }
 
@@ -816,10 +900,10 @@ public class CustomizableGui extends Gui {
         return newLore;
     }
 
-    private class CustomButton {
+    private static class CustomButton {
         private final String key;
 
-        private final List<Integer> positions;
+        private final int[] positions;
         private final int row;
         private final int col;
 
@@ -827,15 +911,16 @@ public class CustomizableGui extends Gui {
         private final List<String> lore;
 
         private final CompatibleMaterial item;
+        private volatile ItemStack template;
 
-        public CustomButton(String key, List<Integer> positions, String title, List<String> lore, CompatibleMaterial item) {
+        public CustomButton(String key, int[] positions, String title, List<String> lore, CompatibleMaterial item) {
             this.key = key;
             this.positions = positions;
             this.row = -1;
             this.col = -1;
             this.item = item;
-            this.title = title;
-            this.lore = lore;
+            this.title = title == null ? null : TextUtils.formatText(title);
+            this.lore = lore == null ? null : TextUtils.formatText(lore);
         }
 
         public CustomButton(String key, int row, int col, String title, List<String> lore, CompatibleMaterial item) {
@@ -844,8 +929,8 @@ public class CustomizableGui extends Gui {
             this.row = row;
             this.col = col;
             this.item = item;
-            this.title = title;
-            this.lore = lore;
+            this.title = title == null ? null : TextUtils.formatText(title);
+            this.lore = lore == null ? null : TextUtils.formatText(lore);
         }
 
         public String getKey() {
@@ -857,10 +942,12 @@ public class CustomizableGui extends Gui {
                 return false;
             }
 
-            item.setType(this.item.getMaterial());
+            if (this.item != null) {
+                item.setType(this.item.getMaterial());
 
-            if (ServerVersion.isServerVersionAtOrBelow(ServerVersion.V1_13)) {
-                item.setDurability(this.item.getData());
+                if (ServerVersion.isServerVersionAtOrBelow(ServerVersion.V1_13)) {
+                    item.setDurability(this.item.getData());
+                }
             }
 
             applyMeta(item);
@@ -869,32 +956,41 @@ public class CustomizableGui extends Gui {
         }
 
         public ItemStack createItem() {
-            ItemStack item = this.item.getItem();
-            applyMeta(item);
+            ItemStack template = this.template;
+
+            if (template == null) {
+                template = this.item.getItem();
+                applyMeta(template);
 
-            return item;
+                this.template = template;
+            }
+
+            return template.clone();
         }
 
         private void applyMeta(ItemStack item) {
             ItemMeta meta = item.getItemMeta();
 
             if (title != null) {
-                meta.setDisplayName(TextUtils.formatText(title));
+                meta.setDisplayName(title);
             }
 
             if (lore != null) {
-                meta.setLore(TextUtils.formatText(lore));
+                meta.setLore(lore);
             }
 
             item.setItemMeta(meta);
         }
 
-        public List<Integer> applyPosition(int cell) {
+        /**
+         * @return the cells the button is moved to, must not be modified
+         */
+        public int[] applyPosition(int cell, int columns) {
             if (row != -1 && col != -1) {
-                return Collections.singletonList(col + row * inventoryType.columns);
+                return new int[] {col + row * columns};
             }
 
-            return positions == null ? Collections.singletonList(cell) : positions;
+            return positions == null ? new int[] {cell} : positions;
         }
 
         public int applyPositionRow(int row) {
@@ -906,7 +1002,7 @@ public class CustomizableGui extends Gui {
         }
     }
 
-    private class MirrorFill extends CustomButton {
+    private static class MirrorFill extends CustomButton {
         private final boolean mirrorRow;
         private final boolean mirrorCol;
 
@@ -926,38 +1022,32 @@ public class CustomizableGui extends Gui {
         }
     }
 
-    private class CustomContent {
-        private final String guiKey;
+    /**
+     * The parsed content of a GUI file, not modified after {@link #compile()}
+     */
+    private static class CustomContent {
         private final Map<String, CustomButton> customizedButtons = new HashMap<>();
         private final Map<String, CustomButton> customButtons = new HashMap<>();
-        private final List<String> disabledButtons = new ArrayList<>();
+        private final Set<String> disabledButtons = new HashSet<>();
+        /**
+         * custom buttons in the order they are applied, mirror fills first
+         */
+        private CustomButton[] orderedCustomButtons = new CustomButton[0];
 
         private int rows = -1;
 
-        public CustomContent(String guiKey) {
-            this.guiKey = guiKey;
-        }
-
-        public String getGuiKey() {
-            return guiKey;
-        }
-
         public CustomButton getCustomizedButton(String key) {
             return customizedButtons.get(key);
         }
 
-        public CustomButton getCustomButton(String key) {
-            return customizedButtons.get(key);
-        }
-
-        public Map<String, CustomButton> getCustomButtons() {
-            return Collections.unmodifiableMap(customButtons);
+        public CustomButton[] getCustomButtons() {
+            return orderedCustomButtons;
         }
 
         public void addButton(String key, String position, String title, List<String> lore, CompatibleMaterial item) {
-            List<Integer> positions = Arrays.stream(position.split(","))
-                    .map(Integer::parseInt)
-                    .collect(Collectors.toList());
+            int[] positions = Arrays.stream(position.split(","))
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
 
             CustomButton customButton = new CustomButton(key, positions, title, lore, item);
 
@@ -991,6 +1081,24 @@ public class CustomizableGui extends Gui {
             customizedButtons.put(key, mirrorFill);
         }
 
+        public void compile() {
+            List<CustomButton> ordered = new ArrayList<>(customButtons.size());
+
+            for (CustomButton customButton : customButtons.values()) {
+                if (customButton instanceof MirrorFill) {
+                    ordered.add(customButton);
+                }
+            }
+
+            for (CustomButton customButton : customButtons.values()) {
+                if (!(customButton instanceof MirrorFill)) {
+                    ordered.add(customButton);
+                }
+            }
+
+            orderedCustomButtons = ordered.toArray(new CustomButton[0]);
+        }
+
         public boolean isButtonCustomized(String key) {
             return customizedButtons.containsKey(key);
         }
@@ -1011,4 +1119,105 @@ public class CustomizableGui extends Gui {
             this.rows = rows;
         }
     }
+
+    /**
+     * Reloads the layouts of a GUI folder in the background when their files are changed
+     */
+    private static class LayoutWatcher implements Runnable {
+        private final Plugin plugin;
+        private final File folder;
+        private final WatchService watchService;
+
+        LayoutWatcher(Plugin plugin, File folder) throws IOException {
+            this.plugin = plugin;
+            this.folder = folder;
+            this.watchService = FileSystems.getDefault().newWatchService();
+
+            folder.toPath().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    WatchKey watchKey = watchService.take();
+                    Set<File> changedFiles = new LinkedHashSet<>();
+
+                    for (WatchEvent<?> event : watchKey.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            changedFiles.addAll(getLoadedFiles());
+                        } else {
+                            changedFiles.add(new File(folder, event.context().toString()));
+                        }
+                    }
+
+                    changedFiles.forEach(this::reload);
+
+                    // the folder has been deleted
+                    if (!watchKey.reset()) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException ignore) {
+            } finally {
+                boolean registered;
+
+                synchronized (layoutWatchers) {
+                    // already removed if the layouts have been unloaded, a new watcher may be registered by now
+                    registered = layoutWatchers.remove(folder, this);
+                }
+
+                if (registered) {
+                    // loaded again, with a new watcher, when they are opened the next time
+                    getLoadedFiles().forEach(loadedGuis::remove);
+                }
+
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                watchService.close();
+            } catch (IOException ignore) {
+            }
+        }
+
+        private List<File> getLoadedFiles() {
+            List<File> files = new ArrayList<>();
+
+            for (File file : loadedGuis.keySet()) {
+                if (folder.equals(file.getParentFile())) {
+                    files.add(file);
+                }
+            }
+
+            return files;
+        }
+
+        private void reload(File file) {
+            // files that haven't been used yet are loaded when they are opened
+            if (!loadedGuis.containsKey(file)) {
+                return;
+            }
+
+            if (!file.exists()) {
+                // created again with the default content when it is opened the next time
+                loadedGuis.remove(file);
+                return;
+            }
+
+            try {
+                Config config = new Config(file);
+
+                // keep the previous layout while the file is only partially written
+                if (config.load()) {
+                    loadedGuis.put(file, compileContent(config));
+                }
+            } catch (RuntimeException ex) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to reload GUI layout " + file.getName(), ex);
+            }
+        }
+    }
 }
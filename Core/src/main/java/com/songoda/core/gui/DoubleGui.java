@@ -78,29 +78,29 @@ public class DoubleGui extends Gui {
     }
 
     public DoubleGui setPlayerUnlocked(int cell) {
-        unlockedCells.put(invOffset(cell), true);
+        unlockCell(invOffset(cell), true);
         return this;
     }
 
     public DoubleGui setPlayerUnlocked(int row, int col) {
-        unlockedCells.put(invOffset(col + row * 9), true);
+        unlockCell(invOffset(col + row * 9), true);
         return this;
     }
 
     public DoubleGui setPlayerUnlocked(int cell, boolean open) {
-        unlockedCells.put(invOffset(cell), open);
+        unlockCell(invOffset(cell), open);
         return this;
     }
 
     public DoubleGui setPlayerUnlocked(int row, int col, boolean open) {
-        unlockedCells.put(invOffset(col + row * 9), open);
+        unlockCell(invOffset(col + row * 9), open);
         return this;
     }
 
     public DoubleGui setPlayerUnlockedRange(int cellFirst, int cellLast) {
         final int last = invOffset(cellLast);
         for (int cell = invOffset(cellFirst); cell <= last; ++cell) {
-            unlockedCells.put(cell, true);
+            unlockCell(cell, true);
         }
         return this;
     }
@@ -109,7 +109,7 @@ public class DoubleGui extends Gui {
         final int last = invOffset(cellLast);
 
         for (int cell = invOffset(cellFirst); cell <= last; ++cell) {
-            unlockedCells.put(cell, open);
+            unlockCell(cell, open);
         }
 
         return this;
@@ -119,7 +119,7 @@ public class DoubleGui extends Gui {
         final int last = invOffset(cellColLast + cellRowLast * 9);
 
         for (int cell = invOffset(cellColFirst + cellRowFirst * 9); cell <= last; ++cell) {
-            unlockedCells.put(cell, true);
+            unlockCell(cell, true);
         }
 
         return this;
@@ -129,7 +129,7 @@ public class DoubleGui extends Gui {
         final int last = invOffset(cellColLast + cellRowLast * 9);
 
         for (int cell = invOffset(cellColFirst + cellRowFirst * 9); cell <= last; ++cell) {
-            unlockedCells.put(cell, open);
+            unlockCell(cell, open);
         }
 
         return this;
@@ -290,18 +290,16 @@ public class DoubleGui extends Gui {
     @Override
     protected boolean onClickPlayerInventory(GuiManager manager, Player player, Inventory openInv, InventoryClickEvent event) {
         final int cell = event.getSlot(), offsetCell = clickOffset(cell);
-        Map<ClickType, Clickable> conditionals = conditionalButtons.get(offsetCell);
-        Clickable button;
+        Clickable button = getConditional(offsetCell, event.getClick());
 
-        if (conditionals != null
-                && ((button = conditionals.get(event.getClick())) != null || (button = conditionals.get(null)) != null)) {
+        if (button != null) {
             button.onClick(new GuiClickEvent(manager, this, player, event, cell, true));
         } else {
             // no event for this button
             return false;
         }
 
-        event.setCancelled(unlockedCells.entrySet().stream().noneMatch(e -> offsetCell == e.getKey() && e.getValue()));
+        event.setCancelled(!isUnlocked(offsetCell));
 
         return true;
     }
@@ -13,7 +13,9 @@ import com.songoda.core.gui.methods.Closable;
 import com.songoda.core.gui.methods.Droppable;
 import com.songoda.core.gui.methods.Openable;
 import com.songoda.core.gui.methods.Pagable;
+import com.songoda.core.gui.methods.Preparable;
 import com.songoda.core.utils.ItemUtils;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
@@ -25,10 +27,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -42,9 +43,11 @@ public class Gui {
     protected boolean acceptsItems = false;
     protected boolean allowDropItems = true;
     protected boolean allowClose = true;
-    protected final Map<Integer, Boolean> unlockedCells = new HashMap<>();
-    protected final Map<Integer, ItemStack> cellItems = new HashMap<>();
-    protected final Map<Integer, Map<ClickType, Clickable>> conditionalButtons = new HashMap<>();
+    protected final BitSet unlockedCells = new BitSet();
+    protected final CellMap<ItemStack> cellItems = new CellMap<>();
+    // actions by cell, indexed by the ordinal of the click type + 1, the first action is for any click type
+    protected final CellMap<Clickable[]> conditionalButtons = new CellMap<>();
+    private static final ClickType[] CLICK_TYPES = ClickType.values();
     protected ItemStack blankItem = GuiUtils.getBorderGlassItem();
     protected int nextPageIndex = -1, prevPageIndex = -1;
     protected ItemStack nextPageItem, prevPageItem;
@@ -60,8 +63,23 @@ public class Gui {
     protected Closable closer = null;
     protected Droppable dropper = null;
     protected Pagable pager = null;
+    protected Preparable preparer = null;
+    protected PagedItemSource pagedItems = null;
+    protected int pagedCellFirst, pagedCellLast;
+    protected Clickable pagedClicker = null;
     protected CompatibleSound defaultSound = CompatibleSound.UI_BUTTON_CLICK;
 
+    // what has last been pushed to the inventory, it is shared by all viewers
+    private Inventory renderedInventory;
+    private ItemStack[] renderedItems;
+    private final BitSet renderedCells = new BitSet();
+    // changes waiting for the next tick if updates are batched
+    protected boolean batchUpdates = false;
+    private ItemStack[] pendingItems;
+    private final BitSet pendingCells = new BitSet();
+    private boolean pendingTitle = false;
+    private boolean renderScheduled = false;
+
     public Gui() {
         this.rows = 3;
     }
@@ -107,7 +125,7 @@ public class Gui {
 
     public boolean isOpen() {
         // double check
-        if (inventory != null && inventory.getViewers().isEmpty()) {
+        if (inventory != null && getPlayers().isEmpty()) {
             open = false;
         }
 
@@ -157,11 +175,7 @@ public class Gui {
         allowClose = true;
         open = false;
 
-        inventory.getViewers().stream()
-                .filter(Player.class::isInstance)
-                .map(Player.class::cast)
-                .collect(Collectors.toList())
-                .forEach(Player::closeInventory);
+        getPlayers().forEach(Player::closeInventory);
     }
 
     /**
@@ -170,11 +184,7 @@ public class Gui {
     public void close() {
         allowClose = true;
 
-        inventory.getViewers().stream()
-                .filter(Player.class::isInstance)
-                .map(Player.class::cast)
-                .collect(Collectors.toList())
-                .forEach(Player::closeInventory);
+        getPlayers().forEach(Player::closeInventory);
     }
 
     @NotNull
@@ -184,14 +194,14 @@ public class Gui {
 
     @NotNull
     public Gui setUnlocked(int cell) {
-        unlockedCells.put(cell, true);
+        unlockCell(cell, true);
         return this;
     }
 
     @NotNull
     public Gui setUnlocked(int row, int col) {
         final int cell = col + row * inventoryType.columns;
-        unlockedCells.put(cell, true);
+        unlockCell(cell, true);
 
         return this;
     }
@@ -199,7 +209,7 @@ public class Gui {
     @NotNull
     public Gui setUnlockedRange(int cellFirst, int cellLast) {
         for (int cell = cellFirst; cell <= cellLast; ++cell) {
-            unlockedCells.put(cell, true);
+            unlockCell(cell, true);
         }
 
         return this;
@@ -208,7 +218,7 @@ public class Gui {
     @NotNull
     public Gui setUnlockedRange(int cellFirst, int cellLast, boolean open) {
         for (int cell = cellFirst; cell <= cellLast; ++cell) {
-            unlockedCells.put(cell, open);
+            unlockCell(cell, open);
         }
 
         return this;
@@ -219,7 +229,7 @@ public class Gui {
         final int last = cellColLast + cellRowLast * inventoryType.columns;
 
         for (int cell = cellColFirst + cellRowFirst * inventoryType.columns; cell <= last; ++cell) {
-            unlockedCells.put(cell, true);
+            unlockCell(cell, true);
         }
 
         return this;
@@ -230,7 +240,7 @@ public class Gui {
         final int last = cellColLast + cellRowLast * inventoryType.columns;
 
         for (int cell = cellColFirst + cellRowFirst * inventoryType.columns; cell <= last; ++cell) {
-            unlockedCells.put(cell, open);
+            unlockCell(cell, open);
         }
 
         return this;
@@ -238,14 +248,14 @@ public class Gui {
 
     @NotNull
     public Gui setUnlocked(int cell, boolean open) {
-        unlockedCells.put(cell, open);
+        unlockCell(cell, open);
         return this;
     }
 
     @NotNull
     public Gui setUnlocked(int row, int col, boolean open) {
         final int cell = col + row * inventoryType.columns;
-        unlockedCells.put(cell, open);
+        unlockCell(cell, open);
 
         return this;
     }
@@ -260,19 +270,53 @@ public class Gui {
             this.title = title;
 
             if (inventory != null) {
-                // update active inventory
-                List<Player> toUpdate = getPlayers();
-                boolean isAllowClose = allowClose;
-                exit();
+                if (isBatching()) {
+                    // the inventory has to be reopened for a new title, so only do it once per tick
+                    pendingTitle = true;
+                    scheduleRender();
+                } else {
+                    reopenWithTitle();
+                }
+            }
+        }
 
-                Inventory oldInv = inventory;
-                createInventory();
-                inventory.setContents(oldInv.getContents());
+        return this;
+    }
 
-                toUpdate.forEach(player -> player.openInventory(inventory));
+    private void reopenWithTitle() {
+        // update active inventory
+        List<Player> toUpdate = getPlayers();
+        boolean isAllowClose = allowClose;
+        exit();
 
-                allowClose = isAllowClose;
-            }
+        Inventory oldInv = inventory;
+        createInventory();
+        inventory.setContents(oldInv.getContents());
+
+        // closing removed the players as viewers, register them again so closing the new inventory is handled
+        for (Player player : toUpdate) {
+            player.openInventory(getOrCreateInventory(guiManager, player));
+            guiManager.addViewer(player, this);
+        }
+
+        open = !toUpdate.isEmpty();
+        allowClose = isAllowClose;
+    }
+
+    public boolean getBatchUpdates() {
+        return batchUpdates;
+    }
+
+    /**
+     * If this is true, changes to an open GUI are collected and pushed to the inventory once on the next tick.
+     * Cells that changed back and forth within a tick are not sent at all, and title changes only reopen the inventory once.
+     * Useful for animated or live updating GUIs.
+     */
+    public Gui setBatchUpdates(boolean batchUpdates) {
+        this.batchUpdates = batchUpdates;
+
+        if (!batchUpdates) {
+            flushUpdates();
         }
 
         return this;
@@ -321,7 +365,7 @@ public class Gui {
 
     @Nullable
     public ItemStack getItem(int cell) {
-        if (inventory != null && unlockedCells.getOrDefault(cell, false)) {
+        if (inventory != null && isUnlocked(cell)) {
             return inventory.getItem(cell);
         }
 
@@ -332,7 +376,7 @@ public class Gui {
     public ItemStack getItem(int row, int col) {
         final int cell = col + row * inventoryType.columns;
 
-        if (inventory != null && unlockedCells.getOrDefault(cell, false)) {
+        if (inventory != null && isUnlocked(cell)) {
             return inventory.getItem(cell);
         }
 
@@ -342,10 +386,7 @@ public class Gui {
     @NotNull
     public Gui setItem(int cell, @Nullable ItemStack item) {
         cellItems.put(cell, item);
-
-        if (inventory != null && cell >= 0 && cell < inventory.getSize()) {
-            inventory.setItem(cell, item);
-        }
+        pushItem(cell, item);
 
         return this;
     }
@@ -660,8 +701,47 @@ public class Gui {
     }
 
     protected void setConditional(int cell, @Nullable ClickType type, @Nullable Clickable action) {
-        Map<ClickType, Clickable> conditionals = conditionalButtons.computeIfAbsent(cell, k -> new HashMap<>());
-        conditionals.put(type, action);
+        Clickable[] conditionals = conditionalButtons.get(cell);
+
+        if (conditionals == null) {
+            conditionals = new Clickable[CLICK_TYPES.length + 1];
+            conditionalButtons.put(cell, conditionals);
+        }
+
+        conditionals[type == null ? 0 : type.ordinal() + 1] = action;
+    }
+
+    /**
+     * Get the action for a click on a cell
+     *
+     * @param cell the clicked cell
+     * @param type how the cell has been clicked
+     *
+     * @return the action for the click type, or else the action for any click type, or null if there is none
+     */
+    @Nullable
+    protected Clickable getConditional(int cell, @Nullable ClickType type) {
+        Clickable[] conditionals = conditionalButtons.get(cell);
+
+        if (conditionals == null) {
+            return null;
+        }
+
+        Clickable action = type == null ? null : conditionals[type.ordinal() + 1];
+        return action != null ? action : conditionals[0];
+    }
+
+    /**
+     * @return true if players can put items into or take items from the cell
+     */
+    public boolean isUnlocked(int cell) {
+        return cell >= 0 && unlockedCells.get(cell);
+    }
+
+    protected void unlockCell(int cell, boolean open) {
+        if (cell >= 0) {
+            unlockedCells.set(cell, open);
+        }
     }
 
     @NotNull
@@ -688,6 +768,33 @@ public class Gui {
         return this;
     }
 
+    /**
+     * Set an action building items off the main thread every time this GUI is about to be shown,
+     * for items that are expensive to create like formatted lore, skulls with textures or translated texts.
+     */
+    @NotNull
+    public Gui setOnPrepare(@Nullable Preparable action) {
+        preparer = action;
+        return this;
+    }
+
+    @Nullable
+    public Preparable getPreparer() {
+        return preparer;
+    }
+
+    /**
+     * Put the items that have been prepared off the main thread into this GUI
+     *
+     * @param player the player the items have been prepared for
+     * @param model  the prepared items
+     */
+    protected void applyModel(@NotNull Player player, @NotNull GuiItemModel model) {
+        for (int i = 0; i < model.size(); ++i) {
+            setItem(model.getCell(i), model.getItem(i));
+        }
+    }
+
     public Gui setNextPage(ItemStack item) {
         nextPage = item;
         return this;
@@ -701,6 +808,7 @@ public class Gui {
     public void reset() {
         if (inventory != null) {
             inventory.clear();
+            invalidateRender();
         }
 
         setActionForRange(0, 53, null);
@@ -756,11 +864,8 @@ public class Gui {
         int lastPage = this.page;
         this.page = Math.max(1, Math.min(pages, page));
 
-        if (pager != null && this.page != lastPage) {
-            pager.onPageChange(new GuiPageEvent(this, guiManager, lastPage, page));
-
-            // page markers
-            updatePageNavigation();
+        if (this.page != lastPage) {
+            onPageChange(lastPage, page);
         }
     }
 
@@ -768,11 +873,8 @@ public class Gui {
         int lastPage = page;
         this.page = Math.max(1, Math.min(pages, page + direction));
 
-        if (pager != null && this.page != lastPage) {
-            pager.onPageChange(new GuiPageEvent(this, guiManager, lastPage, page));
-
-            // page markers
-            updatePageNavigation();
+        if (this.page != lastPage) {
+            onPageChange(lastPage, page);
         }
     }
 
@@ -781,17 +883,7 @@ public class Gui {
             int lastPage = page;
             ++page;
 
-            // page switch events
-            if (pager != null) {
-                pager.onPageChange(new GuiPageEvent(this, guiManager, lastPage, page));
-
-                // page markers
-                updatePageNavigation();
-
-                // push new inventory to the view inventory
-                // shouldn't be needed since adding inventory update to setItem
-                //update();
-            }
+            onPageChange(lastPage, page);
         }
     }
 
@@ -800,19 +892,93 @@ public class Gui {
             int lastPage = page;
             --page;
 
-            if (pager != null) {
-                pager.onPageChange(new GuiPageEvent(this, guiManager, lastPage, page));
+            onPageChange(lastPage, page);
+        }
+    }
+
+    private void onPageChange(int lastPage, int page) {
+        showPagedItems();
 
-                // page markers
-                updatePageNavigation();
+        // page switch events
+        if (pager != null) {
+            pager.onPageChange(new GuiPageEvent(this, guiManager, lastPage, page));
+        }
 
-                // push new inventory to the view inventory
-                // shouldn't be needed since adding inventory update to setItem
-                //update();
-            }
+        if (pager != null || pagedItems != null) {
+            // page markers
+            updatePageNavigation();
         }
     }
 
+    /**
+     * Fill a range of cells with items that are only created when their page is shown. <br>
+     * The pages of this GUI are calculated from the number of items, use
+     * {@link #setNextPage(int, ItemStack)} and {@link #setPrevPage(int, ItemStack)} to add page buttons.
+     *
+     * @param cellFirst the first cell showing items of the source
+     * @param cellLast  the last cell showing items of the source
+     * @param source    the items to show, or null to remove the source
+     * @param action    called when an item of the source is clicked, see {@link #getPagedIndex(int)}
+     */
+    @NotNull
+    public Gui setPagedItems(int cellFirst, int cellLast, @Nullable PagedItemSource source, @Nullable Clickable action) {
+        this.pagedItems = source;
+        this.pagedCellFirst = cellFirst;
+        this.pagedCellLast = cellLast;
+        this.pagedClicker = action;
+
+        if (source != null) {
+            source.setPageSize(cellLast - cellFirst + 1);
+            showPagedItems();
+            updatePageNavigation();
+        }
+
+        return this;
+    }
+
+    @NotNull
+    public Gui setPagedItems(int cellFirst, int cellLast, @Nullable PagedItemSource source) {
+        return setPagedItems(cellFirst, cellLast, source, null);
+    }
+
+    /**
+     * Get the index of the paged item shown in a cell
+     *
+     * @param cell the cell to check
+     *
+     * @return the index in the {@link PagedItemSource}, or -1 if the cell doesn't show a paged item
+     */
+    public int getPagedIndex(int cell) {
+        if (pagedItems == null || cell < pagedCellFirst || cell > pagedCellLast) {
+            return -1;
+        }
+
+        int index = (page - 1) * pagedItems.getPageSize() + cell - pagedCellFirst;
+        return index < pagedItems.getCount() ? index : -1;
+    }
+
+    /**
+     * Show the items of the current page of the {@link PagedItemSource}, and update the number of pages
+     */
+    protected void showPagedItems() {
+        if (pagedItems == null) {
+            return;
+        }
+
+        pages = pagedItems.getPages();
+        page = Math.min(page, pages);
+
+        ItemStack[] items = pagedItems.getPage(page);
+        for (int i = 0; i < items.length; ++i) {
+            final int cell = pagedCellFirst + i;
+
+            cellItems.put(cell, items[i]);
+            pushItem(cell, items[i] != null ? items[i] : blankItem);
+        }
+
+        pagedItems.prefetch(page, guiManager != null ? guiManager.getPrepareExecutor() : null);
+    }
+
     protected void updatePageNavigation() {
         if (prevPage != null) {
             if (page > 1) {
@@ -838,6 +1004,14 @@ public class Gui {
         return inventory != null ? inventory : generateInventory(manager);
     }
 
+    /**
+     * Get the inventory to show to a player. All players share the same inventory, unless overridden.
+     */
+    @NotNull
+    protected Inventory getOrCreateInventory(@NotNull GuiManager manager, @NotNull Player player) {
+        return getOrCreateInventory(manager);
+    }
+
     @NotNull
     protected Inventory generateInventory(@NotNull GuiManager manager) {
         this.guiManager = manager;
@@ -847,25 +1021,28 @@ public class Gui {
 
         for (int i = 0; i < cells; ++i) {
             final ItemStack item = cellItems.get(i);
-            inventory.setItem(i, item != null ? item : (unlockedCells.getOrDefault(i, false) ? AIR : blankItem));
+            renderItem(i, item != null ? item : (isUnlocked(i) ? AIR : blankItem));
         }
 
         return inventory;
     }
 
     protected void createInventory() {
+        inventory = newInventory();
+    }
+
+    @NotNull
+    protected Inventory newInventory() {
         final InventoryType t = inventoryType == null ? InventoryType.CHEST : inventoryType.type;
 
         switch (t) {
             case DISPENSER:
             case HOPPER:
-                inventory = new GuiHolder(guiManager, this).newInventory(t,
+                return new GuiHolder(guiManager, this).newInventory(t,
                         title == null ? "" : trimTitle(title));
-                break;
             default:
-                inventory = new GuiHolder(guiManager, this).newInventory(rows * 9,
+                return new GuiHolder(guiManager, this).newInventory(rows * 9,
                         title == null ? "" : trimTitle(title));
-                break;
         }
     }
 
@@ -882,8 +1059,108 @@ public class Gui {
         final int cells = rows * inventoryType.columns;
         for (int i = 0; i < cells; ++i) {
             final ItemStack item = cellItems.get(i);
-            inventory.setItem(i, item != null ? item : (unlockedCells.getOrDefault(i, false) ? AIR : blankItem));
+            pushItem(i, item != null ? item : (isUnlocked(i) ? AIR : blankItem));
+        }
+    }
+
+    /**
+     * Show an item in a cell of the inventory. <br>
+     * Nothing is sent if the cell already shows an equal item. With {@link #setBatchUpdates(boolean)} enabled,
+     * the item is pushed on the next tick together with all other changes of this tick.
+     *
+     * @param cell the cell of the inventory, cells outside of it are ignored
+     * @param item the item to show
+     */
+    protected void pushItem(int cell, @Nullable ItemStack item) {
+        if (inventory == null || cell < 0 || cell >= inventory.getSize()) {
+            return;
+        }
+
+        if (!isBatching()) {
+            renderItem(cell, item);
+            return;
+        }
+
+        if (pendingItems == null || pendingItems.length <= cell) {
+            pendingItems = pendingItems == null ? new ItemStack[inventory.getSize()] : Arrays.copyOf(pendingItems, inventory.getSize());
         }
+
+        pendingItems[cell] = item;
+        pendingCells.set(cell);
+        scheduleRender();
+    }
+
+    /**
+     * Push all changes that are waiting for the next tick now
+     */
+    public void flushUpdates() {
+        renderScheduled = false;
+
+        for (int cell = pendingCells.nextSetBit(0); cell >= 0; cell = pendingCells.nextSetBit(cell + 1)) {
+            if (inventory != null && cell < inventory.getSize()) {
+                renderItem(cell, pendingItems[cell]);
+            }
+
+            pendingItems[cell] = null;
+        }
+
+        pendingCells.clear();
+
+        if (pendingTitle) {
+            pendingTitle = false;
+
+            if (inventory != null) {
+                reopenWithTitle();
+            }
+        }
+    }
+
+    /**
+     * Forget what has been pushed to the inventory, so every cell is sent again on the next update. <br>
+     * Needs to be called by subclasses that change {@link #inventory} directly.
+     */
+    protected void invalidateRender() {
+        renderedInventory = null;
+        renderedItems = null;
+        renderedCells.clear();
+    }
+
+    private boolean isBatching() {
+        return batchUpdates && open && guiManager != null && guiManager.plugin.isEnabled();
+    }
+
+    private void scheduleRender() {
+        if (!renderScheduled) {
+            renderScheduled = true;
+            Bukkit.getScheduler().runTask(guiManager.plugin, this::flushUpdates);
+        }
+    }
+
+    private void renderItem(int cell, @Nullable ItemStack item) {
+        if (renderedInventory != inventory) {
+            renderedInventory = inventory;
+            renderedItems = new ItemStack[inventory.getSize()];
+            renderedCells.clear();
+        }
+
+        // players can change unlocked cells, so we can't tell what they currently show
+        if (renderedCells.get(cell) && !isUnlocked(cell) && isSameItem(renderedItems[cell], item)) {
+            return;
+        }
+
+        inventory.setItem(cell, item);
+
+        // items are often modified after being set, so keep a copy to compare with
+        renderedItems[cell] = item == null || item.getType() == Material.AIR ? null : item.clone();
+        renderedCells.set(cell);
+    }
+
+    private static boolean isSameItem(@Nullable ItemStack rendered, @Nullable ItemStack item) {
+        if (item == null || item.getType() == Material.AIR) {
+            return rendered == null;
+        }
+
+        return item.equals(rendered);
     }
 
     protected static String trimTitle(String title) {
@@ -904,12 +1181,12 @@ public class Gui {
 
     protected boolean onClick(@NotNull GuiManager manager, @NotNull Player player, @NotNull Inventory inventory, @NotNull InventoryClickEvent event) {
         final int cell = event.getSlot();
-        Map<ClickType, Clickable> conditionals = conditionalButtons.get(cell);
+        Clickable button = getConditional(cell, event.getClick());
 
-        Clickable button;
-        if (conditionals != null
-                && ((button = conditionals.get(event.getClick())) != null || (button = conditionals.get(null)) != null)) {
+        if (button != null) {
             button.onClick(new GuiClickEvent(manager, this, player, event, cell, true));
+        } else if (pagedClicker != null && getPagedIndex(cell) != -1) {
+            pagedClicker.onClick(new GuiClickEvent(manager, this, player, event, cell, true));
         } else {
             // no event for this button
             if (defaultClicker != null) {
@@ -942,6 +1219,12 @@ public class Gui {
         }
     }
 
+    /**
+     * Called by the manager when a player no longer views this GUI, no matter how the GUI has been closed
+     */
+    void onViewerRemoved(@NotNull Player player) {
+    }
+
     public void onClose(@NotNull GuiManager manager, @NotNull Player player) {
         if (!allowClose) {
             manager.showGUI(player, this);
@@ -0,0 +1,52 @@
+package com.songoda.core.gui;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Items prepared for a GUI off the main thread. <br>
+ * The model can not be changed once created and is put into the GUI in a single step on the main thread.
+ * The items are handed over, not copied, so they must not be changed after creating the model either.
+ */
+public final class GuiItemModel {
+    public static final GuiItemModel EMPTY = new GuiItemModel(new int[0], new ItemStack[0]);
+
+    private final int[] cells;
+    private final ItemStack[] items;
+
+    public GuiItemModel(@NotNull Map<Integer, ItemStack> items) {
+        this.cells = new int[items.size()];
+        this.items = new ItemStack[items.size()];
+
+        int i = 0;
+        for (Map.Entry<Integer, ItemStack> entry : items.entrySet()) {
+            this.cells[i] = entry.getKey();
+            this.items[i] = entry.getValue();
+            ++i;
+        }
+    }
+
+    private GuiItemModel(int[] cells, ItemStack[] items) {
+        this.cells = cells;
+        this.items = items;
+    }
+
+    /**
+     * @return the number of cells in this model
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    public int getCell(int index) {
+        return cells[index];
+    }
+
+    @Nullable
+    public ItemStack getItem(int index) {
+        return items[index];
+    }
+}
@@ -3,6 +3,7 @@ package com.songoda.core.gui;
 import com.songoda.core.compatibility.ClientVersion;
 import com.songoda.core.compatibility.CompatibleMaterial;
 import com.songoda.core.compatibility.ServerVersion;
+import com.songoda.core.gui.events.GuiPrepareEvent;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -21,9 +22,17 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 
 /**
@@ -34,7 +43,9 @@ public class GuiManager {
     final UUID uuid = UUID.randomUUID(); // manager tracking to fix weird bugs from lazy programming
     final GuiListener listener = new GuiListener(this);
     final Map<Player, Gui> openInventories = new HashMap<>();
+    final Map<Gui, Set<Player>> viewers = new HashMap<>();
     private final Object lock = new Object();
+    private ExecutorService prepareExecutor;
     private boolean initialized = false;
     private boolean shutdown = false;
 
@@ -52,6 +63,16 @@ public class GuiManager {
     public void init() {
         Bukkit.getPluginManager().registerEvents(listener, plugin);
 
+        if (prepareExecutor == null || prepareExecutor.isShutdown()) {
+            AtomicInteger threadId = new AtomicInteger();
+
+            prepareExecutor = Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, plugin.getName() + "-GuiPrepare-" + threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
         initialized = true;
         shutdown = false;
     }
@@ -66,7 +87,9 @@ public class GuiManager {
     }
 
     /**
-     * Create and display a GUI interface for a player
+     * Create and display a GUI interface for a player. <br>
+     * If the GUI has a {@link Gui#setOnPrepare(com.songoda.core.gui.methods.Preparable) prepare action},
+     * its items are built off the main thread first. The inventory is always created and opened on the main thread.
      *
      * @param player player to open the interface for
      * @param gui    GUI to use
@@ -85,41 +108,152 @@ public class GuiManager {
 
         if (gui instanceof AnvilGui) {
             // bukkit throws a fit now if you try to set anvil stuff asynchronously
-            Gui openInv = openInventories.get(player);
-
-            if (openInv != null) {
-                openInv.open = false;
-            }
+            removeViewer(player);
 
             gui.getOrCreateInventory(this);
             ((AnvilGui) gui).open();
             gui.onOpen(this, player);
 
-            synchronized (lock) {
-                openInventories.put(player, gui);
+            addViewer(player, gui);
+            return;
+        }
+
+        if (gui.getPreparer() == null) {
+            // opening an inventory while handling an inventory event doesn't go well, so always wait a tick
+            Bukkit.getScheduler().runTask(plugin, () -> commitGUI(player, gui, GuiItemModel.EMPTY));
+            return;
+        }
+
+        prepareExecutor.execute(() -> {
+            GuiItemModel model;
+
+            try {
+                GuiPrepareEvent event = new GuiPrepareEvent(this, gui, player);
+                gui.getPreparer().onPrepare(event);
+                model = event.toModel();
+            } catch (Throwable th) {
+                plugin.getLogger().log(Level.SEVERE, "Error preparing GUI items", th);
+                model = GuiItemModel.EMPTY;
+            }
+
+            GuiItemModel preparedModel = model;
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> commitGUI(player, gui, preparedModel));
             }
+        });
+    }
 
+    /**
+     * @return the worker threads preparing GUIs, or null if they are not running
+     */
+    Executor getPrepareExecutor() {
+        ExecutorService executor = prepareExecutor;
+        return executor != null && !executor.isShutdown() ? executor : null;
+    }
+
+    /**
+     * Put the prepared items into the GUI and open it, must be called on the main thread
+     */
+    private void commitGUI(Player player, Gui gui, GuiItemModel model) {
+        if (!player.isOnline() || shutdown) {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Gui openInv = openInventories.get(player);
+        gui.applyModel(player, model);
+        Inventory inv = gui.getOrCreateInventory(this, player);
+
+        removeViewer(player);
+
+        player.openInventory(inv);
+        gui.onOpen(this, player);
 
-            if (openInv != null) {
-                openInv.open = false;
+        addViewer(player, gui);
+    }
+
+    /**
+     * Get the GUI a player currently has open
+     *
+     * @param player the player to check
+     *
+     * @return the GUI, or null if the player has no GUI of this manager open
+     */
+    public Gui getOpenGui(Player player) {
+        synchronized (lock) {
+            return openInventories.get(player);
+        }
+    }
+
+    /**
+     * Get all players currently viewing a GUI. A GUI can be shown to many players at once,
+     * see {@link SharedGui} for GUIs that are built once for all of their viewers.
+     *
+     * @param gui the GUI to check
+     *
+     * @return a copy of the players viewing the GUI
+     */
+    public Set<Player> getViewers(Gui gui) {
+        synchronized (lock) {
+            Set<Player> guiViewers = viewers.get(gui);
+            return guiViewers == null ? Collections.emptySet() : new HashSet<>(guiViewers);
+        }
+    }
+
+    void addViewer(Player player, Gui gui) {
+        synchronized (lock) {
+            Gui previous = openInventories.put(player, gui);
+
+            if (previous != null && previous != gui) {
+                detachViewer(player, previous);
             }
 
-            Inventory inv = gui.getOrCreateInventory(this);
+            viewers.computeIfAbsent(gui, key -> new HashSet<>()).add(player);
+        }
+    }
 
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                player.openInventory(inv);
-                gui.onOpen(this, player);
+    /**
+     * Remove a player from the GUI they have open before showing them another one,
+     * so the GUI that is switched away from doesn't handle the close.
+     */
+    void removeViewer(Player player) {
+        synchronized (lock) {
+            Gui gui = openInventories.remove(player);
+
+            if (gui != null) {
+                detachViewer(player, gui);
 
-                synchronized (lock) {
-                    openInventories.put(player, gui);
+                if (!viewers.containsKey(gui)) {
+                    gui.open = false;
                 }
-            });
-        });
+            }
+        }
+    }
+
+    /**
+     * @return true if the player has been viewing the GUI
+     */
+    boolean removeViewer(Player player, Gui gui) {
+        synchronized (lock) {
+            if (!openInventories.remove(player, gui)) {
+                return false;
+            }
+
+            detachViewer(player, gui);
+            return true;
+        }
+    }
+
+    private void detachViewer(Player player, Gui gui) {
+        Set<Player> guiViewers = viewers.get(gui);
+
+        if (guiViewers != null) {
+            guiViewers.remove(player);
+
+            if (guiViewers.isEmpty()) {
+                viewers.remove(gui);
+            }
+        }
+
+        gui.onViewerRemoved(player);
     }
 
     public void showPopup(Player player, String message) {
@@ -163,6 +297,7 @@ public class GuiManager {
                     .forEach(e -> e.getKey().closeInventory());
 
             openInventories.clear();
+            viewers.clear();
         }
     }
 
@@ -187,7 +322,7 @@ public class GuiManager {
 
                 if (event.getRawSlots().stream()
                         .filter(slot -> gui.inventory.getSize() > slot)
-                        .anyMatch(slot -> !gui.unlockedCells.getOrDefault(slot, false))) {
+                        .anyMatch(slot -> !gui.isUnlocked(slot))) {
                     event.setCancelled(true);
                     event.setResult(Result.DENY);
                 }
@@ -214,7 +349,7 @@ public class GuiManager {
                     if (clicked != null && clicked.getType() != Material.AIR) {
                         int cell = 0;
                         for (ItemStack it : gui.inventory.getContents()) {
-                            if (!gui.unlockedCells.getOrDefault(cell++, false) && clicked.isSimilar(it)) {
+                            if (!gui.isUnlocked(cell++) && clicked.isSimilar(it)) {
                                 event.setCancelled(true);
 
                                 if (gui instanceof AnvilGui) {
@@ -234,7 +369,7 @@ public class GuiManager {
                 } // did we click the gui or in the user's inventory?
                 else if (event.getRawSlot() < gui.inventory.getSize()) { // or could use event.getClickedInventory() == gui.inventory
                     // allow event if this is not a GUI element
-                    event.setCancelled(gui.unlockedCells.entrySet().stream().noneMatch(e -> event.getSlot() == e.getKey() && e.getValue()));
+                    event.setCancelled(!gui.isUnlocked(event.getSlot()));
 
                     // process button press
                     if (gui.onClick(manager, player, openInv, event)) {
@@ -268,11 +403,13 @@ public class GuiManager {
                     gui.inventory = null;
                 }
 
-                if (!gui.open) {
+                final Player player = (Player) event.getPlayer();
+
+                // the player has been switched to another GUI, or the GUI has been exited
+                if (!manager.removeViewer(player, gui) || !gui.open) {
                     return;
                 }
 
-                final Player player = (Player) event.getPlayer();
                 if (!gui.allowDropItems) {
                     player.setItemOnCursor(null);
                 }
@@ -282,8 +419,6 @@ public class GuiManager {
                 } else {
                     Bukkit.getScheduler().runTaskLater(manager.plugin, () -> gui.onClose(manager, player), 1);
                 }
-
-                manager.openInventories.remove(player);
             }
         }
 
@@ -294,6 +429,12 @@ public class GuiManager {
                 manager.shutdown = true;
                 manager.closeAll();
                 manager.initialized = false;
+
+                if (manager.prepareExecutor != null) {
+                    manager.prepareExecutor.shutdownNow();
+                }
+
+                CustomizableGui.unloadLayouts(manager.plugin);
             }
         }
     }
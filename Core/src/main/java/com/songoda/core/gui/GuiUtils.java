@@ -8,17 +8,31 @@ import org.bukkit.inventory.meta.ItemMeta;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class GuiUtils {
-    public static ItemStack getBorderGlassItem() {
-        ItemStack glass = CompatibleMaterial.LIGHT_BLUE_STAINED_GLASS_PANE.getItem();
-        ItemMeta glassmeta = glass.getItemMeta();
+    private static final int CACHED_BUTTON_ITEMS = 512;
 
-        glassmeta.setDisplayName(ChatColor.BLACK.toString());
-        glass.setItemMeta(glassmeta);
+    /**
+     * Border items by material, these are never modified or handed out, only their clones are
+     */
+    private static final Map<CompatibleMaterial, ItemStack> borderItems = new EnumMap<>(CompatibleMaterial.class);
+    /**
+     * Formatted button items by material, title and lore, these are never modified or handed out, only their clones are
+     */
+    private static final Map<ButtonKey, ItemStack> buttonItems = new LinkedHashMap<ButtonKey, ItemStack>(64, .75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ButtonKey, ItemStack> eldest) {
+            return size() > CACHED_BUTTON_ITEMS;
+        }
+    };
 
-        return glass;
+    public static ItemStack getBorderGlassItem() {
+        return getBorderItem(CompatibleMaterial.LIGHT_BLUE_STAINED_GLASS_PANE);
     }
 
     public static ItemStack getBorderItem(ItemStack item) {
@@ -31,13 +45,21 @@ public class GuiUtils {
     }
 
     public static ItemStack getBorderItem(CompatibleMaterial mat) {
-        ItemStack item = mat.getItem();
-        ItemMeta glassmeta = item.getItemMeta();
+        ItemStack item;
 
-        glassmeta.setDisplayName(ChatColor.BLACK.toString());
-        item.setItemMeta(glassmeta);
+        synchronized (borderItems) {
+            item = borderItems.get(mat);
+        }
 
-        return item;
+        if (item == null) {
+            item = getBorderItem(mat.getItem());
+
+            synchronized (borderItems) {
+                borderItems.put(mat, item);
+            }
+        }
+
+        return item.clone();
     }
 
     public static List<String> getSafeLore(String... lines) {
@@ -99,42 +121,13 @@ public class GuiUtils {
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, String title, String... lore) {
-        ItemStack item = mat.getItem();
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            meta.setDisplayName(title);
-
-            if (lore != null) {
-                meta.setLore(getSafeLore(lore));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
-        return item;
+        return getButtonItem(mat, title, lore == null ? null : Arrays.asList(lore), false).clone();
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, int amount, String title, String... lore) {
-        ItemStack item = mat.getItem();
+        ItemStack item = createButtonItem(mat, title, lore);
         item.setAmount(amount);
 
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            meta.setDisplayName(title);
-
-            if (lore != null) {
-                meta.setLore(getSafeLore(lore));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
         return item;
     }
 
@@ -158,42 +151,13 @@ public class GuiUtils {
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, String title, List<String> lore) {
-        ItemStack item = mat.getItem();
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            meta.setDisplayName(title);
-
-            if (lore != null) {
-                meta.setLore(getSafeLore(lore));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
-        return item;
+        return getButtonItem(mat, title, lore, false).clone();
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, int amount, String title, List<String> lore) {
-        ItemStack item = mat.getItem();
+        ItemStack item = createButtonItem(mat, title, lore);
         item.setAmount(amount);
 
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            meta.setDisplayName(title);
-
-            if (lore != null) {
-                meta.setLore(getSafeLore(lore));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
         return item;
     }
 
@@ -217,44 +181,13 @@ public class GuiUtils {
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, String[] lore) {
-        ItemStack item = mat.getItem();
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            if (lore != null && lore.length != 0) {
-                List<String> safe = getSafeLore(lore);
-
-                meta.setDisplayName(safe.get(0));
-                meta.setLore(safe.subList(1, safe.size()));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
-        return item;
+        return getButtonItem(mat, null, lore == null ? null : Arrays.asList(lore), true).clone();
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, int amount, String[] lore) {
-        ItemStack item = mat.getItem();
+        ItemStack item = createButtonItem(mat, lore);
         item.setAmount(amount);
 
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            if (lore != null && lore.length != 0) {
-                List<String> safe = getSafeLore(lore);
-
-                meta.setDisplayName(safe.get(0));
-                meta.setLore(safe.subList(1, safe.size()));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
         return item;
     }
 
@@ -279,42 +212,12 @@ public class GuiUtils {
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, List<String> lore) {
-        ItemStack item = mat.getItem();
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            if (lore != null && !lore.isEmpty()) {
-                List<String> safe = getSafeLore(lore);
-
-                meta.setDisplayName(safe.get(0));
-                meta.setLore(safe.subList(1, safe.size()));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
-
-        return item;
+        return getButtonItem(mat, null, lore, true).clone();
     }
 
     public static ItemStack createButtonItem(CompatibleMaterial mat, int amount, List<String> lore) {
-        ItemStack item = mat.getItem();
+        ItemStack item = createButtonItem(mat, lore);
         item.setAmount(amount);
-        ItemMeta meta = item.getItemMeta();
-
-        if (meta != null) {
-            if (lore != null && !lore.isEmpty()) {
-                List<String> safe = getSafeLore(lore);
-
-                meta.setDisplayName(safe.get(0));
-                meta.setLore(safe.subList(1, safe.size()));
-            } else {
-                meta.setLore(Collections.emptyList());
-            }
-
-            item.setItemMeta(meta);
-        }
 
         return item;
     }
@@ -402,7 +305,7 @@ public class GuiUtils {
 
     public static ItemStack updateItem(ItemStack item, CompatibleMaterial matTo, String title, String... lore) {
         if (!matTo.matches(item)) {
-            item = matTo.getItem();
+            return createButtonItem(matTo, title, lore);
         }
 
         ItemMeta meta = item.getItemMeta();
@@ -464,7 +367,7 @@ public class GuiUtils {
 
     public static ItemStack updateItem(ItemStack item, CompatibleMaterial matTo, String title, List<String> lore) {
         if (!matTo.matches(item)) {
-            item = matTo.getItem();
+            return createButtonItem(matTo, title, lore);
         }
 
         ItemMeta meta = item.getItemMeta();
@@ -505,4 +408,85 @@ public class GuiUtils {
 
         return item;
     }
+
+    /**
+     * @param titleFromLore true to use the first line of the lore as title, like {@link #createButtonItem(CompatibleMaterial, List)}
+     *
+     * @return the cached button item, must not be modified
+     */
+    private static ItemStack getButtonItem(CompatibleMaterial mat, String title, List<String> lore, boolean titleFromLore) {
+        ButtonKey key = new ButtonKey(mat, title, lore, titleFromLore);
+        ItemStack item;
+
+        synchronized (buttonItems) {
+            item = buttonItems.get(key);
+        }
+
+        if (item == null) {
+            item = mat.getItem();
+            ItemMeta meta = item.getItemMeta();
+
+            if (meta != null) {
+                if (!titleFromLore) {
+                    meta.setDisplayName(title);
+                    meta.setLore(getSafeLore(key.lore));
+                } else if (!key.lore.isEmpty()) {
+                    List<String> safe = getSafeLore(key.lore);
+
+                    meta.setDisplayName(safe.isEmpty() ? null : safe.get(0));
+                    meta.setLore(safe.isEmpty() ? safe : safe.subList(1, safe.size()));
+                } else {
+                    meta.setLore(Collections.emptyList());
+                }
+
+                item.setItemMeta(meta);
+            }
+
+            synchronized (buttonItems) {
+                buttonItems.put(key, item);
+            }
+        }
+
+        return item;
+    }
+
+    private static final class ButtonKey {
+        private final CompatibleMaterial material;
+        private final String title;
+        private final List<String> lore;
+        private final boolean titleFromLore;
+        private final int hash;
+
+        ButtonKey(CompatibleMaterial material, String title, List<String> lore, boolean titleFromLore) {
+            this.material = material;
+            this.title = title;
+            // a copy, the given lore could be changed after the item has been cached
+            this.lore = lore == null ? Collections.emptyList() : new ArrayList<>(lore);
+            this.titleFromLore = titleFromLore;
+            this.hash = Objects.hash(material, title, this.lore, titleFromLore);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof ButtonKey)) {
+                return false;
+            }
+
+            ButtonKey other = (ButtonKey) obj;
+            return hash == other.hash &&
+                    material == other.material &&
+                    titleFromLore == other.titleFromLore &&
+                    Objects.equals(title, other.title) &&
+                    lore.equals(other.lore);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package com.songoda.core.gui;
+
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * Items of a paged GUI that are created when their page is shown, instead of creating every item up front. <br>
+ * Useful for GUIs listing thousands of entries, like auction houses or player lists.
+ * Built pages are kept in a small LRU cache, and pages next to the shown one can be built ahead of time.
+ *
+ * @see Gui#setPagedItems(int, int, PagedItemSource, com.songoda.core.gui.methods.Clickable)
+ * @see SimplePagedGui#setPagedItems(PagedItemSource, com.songoda.core.gui.methods.Clickable)
+ */
+public class PagedItemSource {
+    private final IntSupplier count;
+    private final IntFunction<ItemStack> items;
+    private int pageSize = 1;
+    private int prefetchPages = 0;
+    private int cachedPages = 4;
+    private final Map<Integer, ItemStack[]> cache = new LinkedHashMap<Integer, ItemStack[]>(8, .75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ItemStack[]> eldest) {
+            return size() > cachedPages;
+        }
+    };
+
+    /**
+     * @param count the total number of items
+     * @param items creates the item for an index, from 0 to count - 1
+     */
+    public PagedItemSource(@NotNull IntSupplier count, @NotNull IntFunction<ItemStack> items) {
+        this.count = count;
+        this.items = items;
+    }
+
+    /**
+     * Build pages next to the shown one ahead of time, off the main thread. <br>
+     * The item function has to be thread safe if this is used.
+     *
+     * @param prefetchPages the number of pages to build in each direction, 0 to disable
+     */
+    @NotNull
+    public PagedItemSource setPrefetchPages(int prefetchPages) {
+        this.prefetchPages = Math.max(0, prefetchPages);
+        return this;
+    }
+
+    /**
+     * @param cachedPages the number of built pages to keep
+     */
+    @NotNull
+    public PagedItemSource setCachedPages(int cachedPages) {
+        synchronized (cache) {
+            this.cachedPages = Math.max(1, cachedPages);
+        }
+
+        return this;
+    }
+
+    public int getCount() {
+        return Math.max(0, count.getAsInt());
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPages() {
+        return Math.max(1, (getCount() + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Forget all built pages, e.g. after the listed entries have changed
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    void setPageSize(int pageSize) {
+        pageSize = Math.max(1, pageSize);
+
+        if (this.pageSize != pageSize) {
+            this.pageSize = pageSize;
+            invalidate();
+        }
+    }
+
+    /**
+     * @param page the page, starting at 1
+     *
+     * @return the items of the page, null for indices past the last item
+     */
+    @NotNull
+    ItemStack[] getPage(int page) {
+        ItemStack[] built;
+
+        synchronized (cache) {
+            built = cache.get(page);
+        }
+
+        if (built == null || built.length != pageSize) {
+            built = buildPage(page, pageSize);
+        }
+
+        return built;
+    }
+
+    void prefetch(int page, @Nullable Executor executor) {
+        if (executor == null || prefetchPages == 0) {
+            return;
+        }
+
+        int pages = getPages();
+
+        for (int distance = 1; distance <= prefetchPages; ++distance) {
+            prefetchPage(page + distance, pages, executor);
+            prefetchPage(page - distance, pages, executor);
+        }
+    }
+
+    private void prefetchPage(int page, int pages, Executor executor) {
+        if (page < 1 || page > pages) {
+            return;
+        }
+
+        synchronized (cache) {
+            ItemStack[] built = cache.get(page);
+
+            if (built != null && built.length == pageSize) {
+                return;
+            }
+        }
+
+        int size = pageSize;
+        executor.execute(() -> buildPage(page, size));
+    }
+
+    private ItemStack[] buildPage(int page, int size) {
+        ItemStack[] built = new ItemStack[size];
+        int first = (page - 1) * size;
+        int last = Math.min(getCount(), first + size);
+
+        for (int index = first; index < last; ++index) {
+            built[index - first] = items.apply(index);
+        }
+
+        synchronized (cache) {
+            if (size == pageSize) {
+                cache.put(page, built);
+            }
+        }
+
+        return built;
+    }
+}
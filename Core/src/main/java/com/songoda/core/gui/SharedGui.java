@@ -0,0 +1,221 @@
+package com.songoda.core.gui;
+
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * GUI that is built once and shown to many players at the same time, like shops or leaderboards. <br>
+ * All viewers share the items, buttons and inventory of this GUI, so open it with
+ * {@link GuiManager#showGUI(Player, Gui)} for every player instead of creating a new GUI per player.
+ * <p>
+ * Cells set with {@link #setViewerItem(int, Function)} show a different item to each viewer,
+ * e.g. an item with the stats of the viewer in its lore.
+ * Bukkit can't show different items to the viewers of one inventory,
+ * so viewers get their own copy of the inventory while the GUI has any of these cells.
+ * Items prepared with {@link #setOnPrepare} are prepared for each viewer
+ * and only put into the copy of that viewer as well.
+ */
+public class SharedGui extends Gui {
+    protected final Map<Integer, Function<Player, ItemStack>> viewerItems = new HashMap<>();
+    protected final Map<Player, Inventory> viewerInventories = new ConcurrentHashMap<>();
+    protected final Map<Player, GuiItemModel> viewerModels = new ConcurrentHashMap<>();
+
+    public SharedGui() {
+        super();
+    }
+
+    public SharedGui(@NotNull GuiType type) {
+        super(type);
+    }
+
+    public SharedGui(int rows) {
+        super(rows);
+    }
+
+    /**
+     * Show a different item to every viewer
+     *
+     * @param cell the cell to set
+     * @param item creates the item shown to a viewer, or null to show the shared item again
+     */
+    @NotNull
+    public SharedGui setViewerItem(int cell, @Nullable Function<Player, ItemStack> item) {
+        boolean wasShared = viewerItems.isEmpty();
+
+        if (item == null) {
+            viewerItems.remove(cell);
+        } else {
+            viewerItems.put(cell, item);
+        }
+
+        if (wasShared != viewerItems.isEmpty() && guiManager != null) {
+            // viewers need to be moved from the shared inventory to their own copy, or the other way around
+            List<Player> toUpdate = getPlayers();
+            viewerInventories.clear();
+            toUpdate.forEach(player -> guiManager.showGUI(player, this));
+        } else {
+            refreshViewerItems();
+        }
+
+        return this;
+    }
+
+    @NotNull
+    public SharedGui setViewerItem(int row, int col, @Nullable Function<Player, ItemStack> item) {
+        return setViewerItem(col + row * inventoryType.columns, item);
+    }
+
+    /**
+     * Create the items of {@link #setViewerItem(int, Function)} again for every viewer
+     */
+    public void refreshViewerItems() {
+        viewerInventories.forEach(this::refreshViewerItems);
+    }
+
+    /**
+     * Create the items of {@link #setViewerItem(int, Function)} again for one viewer
+     *
+     * @param player the viewer to update the items of
+     */
+    public void refreshViewerItems(@NotNull Player player) {
+        Inventory viewerInventory = viewerInventories.get(player);
+
+        if (viewerInventory != null) {
+            refreshViewerItems(player, viewerInventory);
+        }
+    }
+
+    private void refreshViewerItems(Player player, Inventory viewerInventory) {
+        GuiItemModel model = viewerModels.get(player);
+
+        if (model != null) {
+            for (int i = 0; i < model.size(); ++i) {
+                int cell = model.getCell(i);
+
+                if (cell >= 0 && cell < viewerInventory.getSize() && !viewerItems.containsKey(cell)) {
+                    viewerInventory.setItem(cell, model.getItem(i));
+                }
+            }
+        }
+
+        for (Map.Entry<Integer, Function<Player, ItemStack>> entry : viewerItems.entrySet()) {
+            int cell = entry.getKey();
+
+            if (cell >= 0 && cell < viewerInventory.getSize()) {
+                viewerInventory.setItem(cell, entry.getValue().apply(player));
+            }
+        }
+    }
+
+    @NotNull
+    @Override
+    public List<Player> getPlayers() {
+        Set<Player> players = new LinkedHashSet<>(super.getPlayers());
+
+        for (Inventory viewerInventory : viewerInventories.values()) {
+            viewerInventory.getViewers().stream()
+                    .filter(Player.class::isInstance)
+                    .map(Player.class::cast)
+                    .forEach(players::add);
+        }
+
+        return new ArrayList<>(players);
+    }
+
+    @NotNull
+    @Override
+    protected Inventory getOrCreateInventory(@NotNull GuiManager manager, @NotNull Player player) {
+        Inventory sharedInventory = getOrCreateInventory(manager);
+
+        if (viewerItems.isEmpty() && !viewerModels.containsKey(player)) {
+            return sharedInventory;
+        }
+
+        Inventory viewerInventory = viewerInventories.computeIfAbsent(player, key -> {
+            Inventory copy = newInventory();
+            copy.setContents(sharedInventory.getContents());
+            return copy;
+        });
+
+        refreshViewerItems(player, viewerInventory);
+
+        return viewerInventory;
+    }
+
+    @Override
+    protected void createInventory() {
+        super.createInventory();
+
+        // copies of the previous inventory are outdated
+        viewerInventories.clear();
+    }
+
+    /**
+     * Keeps the prepared items of a viewer apart from the shared items,
+     * they are put into the copy of the inventory of that viewer only.
+     */
+    @Override
+    protected void applyModel(@NotNull Player player, @NotNull GuiItemModel model) {
+        if (model.size() == 0) {
+            viewerModels.remove(player);
+        } else {
+            viewerModels.put(player, model);
+        }
+    }
+
+    @Override
+    protected void pushItem(int cell, @Nullable ItemStack item) {
+        super.pushItem(cell, item);
+
+        if (viewerItems.containsKey(cell)) {
+            return;
+        }
+
+        for (Map.Entry<Player, Inventory> entry : viewerInventories.entrySet()) {
+            Inventory viewerInventory = entry.getValue();
+
+            if (cell >= 0 && cell < viewerInventory.getSize() && !isPrepared(entry.getKey(), cell)) {
+                viewerInventory.setItem(cell, item);
+            }
+        }
+    }
+
+    private boolean isPrepared(Player player, int cell) {
+        GuiItemModel model = viewerModels.get(player);
+
+        if (model != null) {
+            for (int i = 0; i < model.size(); ++i) {
+                if (model.getCell(i) == cell) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    void onViewerRemoved(@NotNull Player player) {
+        // a copy nobody looks at yet has just been created to show this GUI to the player again
+        Inventory copy = viewerInventories.get(player);
+
+        if (copy != null && copy.getViewers().isEmpty()) {
+            return;
+        }
+
+        viewerInventories.remove(player);
+        viewerModels.remove(player);
+    }
+}
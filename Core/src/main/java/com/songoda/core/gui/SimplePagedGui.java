@@ -11,7 +11,6 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Paged GUI for when you aren't going to be making too many pages
@@ -57,6 +56,41 @@ public class SimplePagedGui extends Gui {
         return this;
     }
 
+    /**
+     * List items that are only created when their page is shown, below the header. Pages are added for all of the items.
+     * Cells that have an item set with {@link #setItem(int, ItemStack)} show that item instead.
+     *
+     * @param source the items to show, or null to remove the source
+     * @param action called when an item of the source is clicked, see {@link #getPagedIndex(int)}
+     */
+    public SimplePagedGui setPagedItems(PagedItemSource source, Clickable action) {
+        this.pagedItems = source;
+        this.pagedClicker = action;
+
+        if (inventory != null) {
+            update();
+        }
+
+        return this;
+    }
+
+    @Override
+    public int getPagedIndex(int cell) {
+        int startCell = useHeader ? 9 : 0;
+
+        if (pagedItems == null || cell < startCell || cell >= (rows - 1) * 9) {
+            return -1;
+        }
+
+        int index = (page - 1) * rowsPerPage * 9 + cell - startCell;
+        return index < pagedItems.getCount() ? index : -1;
+    }
+
+    @Override
+    protected void showPagedItems() {
+        // items of the source are shown by showPage()
+    }
+
     @Override
     public SimplePagedGui setItem(int row, int col, ItemStack item) {
         return setItem(col + row * 9, item);
@@ -68,8 +102,8 @@ public class SimplePagedGui extends Gui {
         int cellIndex = cell < 0 ? cell : (page == 1 || (useHeader && cell < 9) ? cell : (cell + (page - 1) * (rowsPerPage * 9)));
 
         cellItems.put(cellIndex, item);
-        if (open && cell >= 0 && cell < inventory.getSize()) {
-            inventory.setItem(cell, item);
+        if (open) {
+            pushItem(cell, item);
         }
 
         return this;
@@ -94,10 +128,20 @@ public class SimplePagedGui extends Gui {
     public void showPage() {
         int startCell = useHeader ? 9 : 0;
         int cellIndex = startCell + (page - 1) * (rowsPerPage * 9);
+        ItemStack[] pageItems = pagedItems != null ? pagedItems.getPage(page) : null;
 
         for (int i = startCell; i < (rows - 1) * 9; ++i) {
-            final ItemStack item = cellItems.get(cellIndex++);
-            inventory.setItem(i, item != null ? item : blankItem);
+            ItemStack item = cellItems.get(cellIndex++);
+
+            if (item == null && pageItems != null && i - startCell < pageItems.length) {
+                item = pageItems[i - startCell];
+            }
+
+            pushItem(i, item != null ? item : blankItem);
+        }
+
+        if (pagedItems != null) {
+            pagedItems.prefetch(page, guiManager != null ? guiManager.getPrepareExecutor() : null);
         }
 
         // page markers
@@ -107,22 +151,22 @@ public class SimplePagedGui extends Gui {
     @Override
     protected void updatePageNavigation() {
         if (page > 1) {
-            inventory.setItem(inventory.getSize() - prevPageIndex, prevPage);
+            pushItem(inventory.getSize() - prevPageIndex, prevPage);
 
             this.setButton(-prevPageIndex, prevPage, ClickType.LEFT, (event) -> this.prevPage());
         } else {
-            inventory.setItem(inventory.getSize() - prevPageIndex, footerBackItem != null ? footerBackItem : blankItem);
+            pushItem(inventory.getSize() - prevPageIndex, footerBackItem != null ? footerBackItem : blankItem);
 
             this.setItem(-prevPageIndex, null);
             this.clearActions(-prevPageIndex);
         }
 
         if (pages > 1 && page != pages) {
-            inventory.setItem(inventory.getSize() - nextPageIndex, nextPage);
+            pushItem(inventory.getSize() - nextPageIndex, nextPage);
 
             this.setButton(-nextPageIndex, nextPage, ClickType.LEFT, (event) -> this.nextPage());
         } else {
-            inventory.setItem(inventory.getSize() - nextPageIndex, footerBackItem != null ? footerBackItem : blankItem);
+            pushItem(inventory.getSize() - nextPageIndex, footerBackItem != null ? footerBackItem : blankItem);
 
             this.setItem(-nextPageIndex, null);
             this.clearActions(-nextPageIndex);
@@ -135,7 +179,8 @@ public class SimplePagedGui extends Gui {
 
         // calculate pages here
         rowsPerPage = useHeader ? 4 : 5;
-        maxCellSlot = this.cellItems.keySet().stream().max(Integer::compare).orElse(0) + 1;
+        maxCellSlot = this.cellItems.getLastCell(0) + 1;
+        maxCellSlot = Math.max(maxCellSlot, getPagedCellSlots());
         int maxRows = (int) Math.ceil(maxCellSlot / 9.);
         pages = (int) Math.max(1, Math.ceil(maxRows / (double) rowsPerPage));
         this.setRows(maxRows + (useHeader ? 1 : 0));
@@ -150,6 +195,18 @@ public class SimplePagedGui extends Gui {
         return inventory;
     }
 
+    /**
+     * @return the number of cells needed to show all items of the paged item source
+     */
+    private int getPagedCellSlots() {
+        if (pagedItems == null) {
+            return 0;
+        }
+
+        pagedItems.setPageSize(rowsPerPage * 9);
+        return (useHeader ? 9 : 0) + pagedItems.getCount();
+    }
+
     @Override
     protected void createInventory() {
         final int cells = rows * 9;
@@ -166,7 +223,8 @@ public class SimplePagedGui extends Gui {
 
         // calculate pages here
         rowsPerPage = useHeader ? 4 : 5;
-        maxCellSlot = (this.cellItems.isEmpty() ? 0 : this.cellItems.keySet().stream().max(Integer::compare).get()) + 1;
+        maxCellSlot = this.cellItems.getLastCell(0) + 1;
+        maxCellSlot = Math.max(maxCellSlot, getPagedCellSlots());
         int maxRows = Math.max((useHeader ? 1 : 0), (int) Math.ceil(maxCellSlot / 9.));
         pages = (int) Math.ceil(maxRows / rowsPerPage);
 
@@ -185,14 +243,14 @@ public class SimplePagedGui extends Gui {
             for (int i = 0; i < 9; ++i) {
                 final ItemStack item = cellItems.get(i);
 
-                inventory.setItem(i, item != null ? item : (headerBackItem != null ? headerBackItem : blankItem));
+                pushItem(i, item != null ? item : (headerBackItem != null ? headerBackItem : blankItem));
             }
         }
 
         // last row is dedicated to pagation
         final int cells = rows * 9;
         for (int i = cells - 9; i < cells; ++i) {
-            inventory.setItem(i, footerBackItem != null ? footerBackItem : blankItem);
+            pushItem(i, footerBackItem != null ? footerBackItem : blankItem);
         }
 
         // fill out the rest of the page
@@ -209,22 +267,22 @@ public class SimplePagedGui extends Gui {
     @Override
     protected boolean onClick(GuiManager manager, Player player, Inventory inventory, InventoryClickEvent event) {
         int cell = event.getSlot();
-        Map<ClickType, Clickable> conditionals;
+        Clickable button;
 
         if (useHeader && cell < 9) {
-            conditionals = conditionalButtons.get(cell);
+            button = getConditional(cell, event.getClick());
         } else if (cell >= (rows - 1) * 9) {
             // footer row
-            conditionals = conditionalButtons.get(cell - (rows * 9));
+            button = getConditional(cell - (rows * 9), event.getClick());
         } else {
             int cellIndex = page == 1 ? cell : cell + (page - 1) * rowsPerPage * 9;
-            conditionals = conditionalButtons.get(cellIndex);
+            button = getConditional(cellIndex, event.getClick());
         }
 
-        Clickable button;
-        if (conditionals != null
-                && ((button = conditionals.get(event.getClick())) != null || (button = conditionals.get(null)) != null)) {
+        if (button != null) {
             button.onClick(new GuiClickEvent(manager, this, player, event, cell, true));
+        } else if (pagedClicker != null && getPagedIndex(cell) != -1) {
+            pagedClicker.onClick(new GuiClickEvent(manager, this, player, event, cell, true));
         } else {
             // no event for this button
             return false;
@@ -0,0 +1,32 @@
+package com.songoda.core.gui.events;
+
+import com.songoda.core.gui.Gui;
+import com.songoda.core.gui.GuiItemModel;
+import com.songoda.core.gui.GuiManager;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Called off the main thread before a GUI is shown. <br>
+ * Items set here are built without blocking the server and put into the GUI on the main thread right before it is opened.
+ * Only build items here, the GUI and the world must not be changed from this thread.
+ */
+public class GuiPrepareEvent extends GuiEvent {
+    private final Map<Integer, ItemStack> items = new LinkedHashMap<>();
+
+    public GuiPrepareEvent(GuiManager manager, Gui gui, Player player) {
+        super(manager, gui, player);
+    }
+
+    public GuiPrepareEvent setItem(int cell, ItemStack item) {
+        items.put(cell, item);
+        return this;
+    }
+
+    public GuiItemModel toModel() {
+        return new GuiItemModel(items);
+    }
+}
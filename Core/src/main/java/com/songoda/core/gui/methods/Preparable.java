@@ -0,0 +1,7 @@
+package com.songoda.core.gui.methods;
+
+import com.songoda.core.gui.events.GuiPrepareEvent;
+
+public interface Preparable {
+    void onPrepare(GuiPrepareEvent event);
+}
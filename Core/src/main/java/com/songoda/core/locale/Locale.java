@@ -1,5 +1,6 @@
 package com.songoda.core.locale;
 
+import com.songoda.core.chat.ChatMessage;
 import com.songoda.core.configuration.Config;
 import com.songoda.core.configuration.ConfigSection;
 import com.songoda.core.utils.TextUtils;
@@ -37,6 +38,11 @@ public class Locale {
     private static final String FILE_EXTENSION = ".lang";
 
     private final Map<String, String> nodes = new HashMap<>();
+    /**
+     * the nodes compiled once on load, so placeholders are not searched for on every message
+     */
+    private final Map<String, MessageTemplate> templates = new HashMap<>();
+    private ChatMessage prefix;
     private final Plugin plugin;
     private final File file;
     private final String name;
@@ -296,6 +302,8 @@ public class Locale {
         }
 
         this.nodes.clear(); // Clear previous data (if any)
+        this.templates.clear();
+        this.prefix = null;
 
         // guess what encoding this file is in
         Charset charset = TextUtils.detectCharset(file, null);
@@ -317,6 +325,7 @@ public class Locale {
                     v instanceof List
                             ? (((List<?>) v).stream().map(Object::toString).collect(Collectors.joining("\n")))
                             : v.toString()));
+            nodes.forEach((k, v) -> templates.put(k, MessageTemplate.compile(v)));
 
             return true;
         } catch (IOException ex) {
@@ -426,7 +435,11 @@ public class Locale {
      * @return applied message
      */
     private Message supplyPrefix(Message message) {
-        return message.setPrefix(this.nodes.getOrDefault("general.nametag.prefix", "[" + plugin.getName() + "]"));
+        if (this.prefix == null) {
+            this.prefix = new ChatMessage().fromText(this.nodes.getOrDefault("general.nametag.prefix", "[" + plugin.getName() + "]") + " ");
+        }
+
+        return message.setPrefix(this.prefix);
     }
 
     /**
@@ -468,7 +481,9 @@ public class Locale {
             node += ".message";
         }
 
-        return supplyPrefix(new Message(this.nodes.getOrDefault(node, defaultValue)));
+        MessageTemplate template = this.templates.get(node);
+
+        return supplyPrefix(template != null ? new Message(template) : new Message(defaultValue));
     }
 
     /**
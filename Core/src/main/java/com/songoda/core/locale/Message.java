@@ -8,7 +8,10 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 /**
@@ -32,6 +35,11 @@ public class Message {
 
     private ChatMessage prefix = null;
     private ChatMessage message;
+    /**
+     * the compiled text of this message, with the placeholders to fill it with once the message is needed
+     */
+    private MessageTemplate template;
+    private Map<String, Object> placeholders = Collections.emptyMap();
 
     /**
      * create a new message
@@ -39,10 +47,16 @@ public class Message {
      * @param message the message text
      */
     public Message(String message) {
-        ChatMessage chatMessage = new ChatMessage();
-        chatMessage.fromText(message);
+        this(MessageTemplate.compile(message));
+    }
 
-        this.message = chatMessage;
+    /**
+     * create a new message
+     *
+     * @param template the compiled message text
+     */
+    public Message(MessageTemplate template) {
+        this.template = template;
     }
 
     /**
@@ -69,7 +83,7 @@ public class Message {
      * @param sender command sender to send the message to
      */
     public void sendMessage(CommandSender sender) {
-        message.sendTo(sender);
+        getChatMessage().sendTo(sender);
     }
 
     /**
@@ -119,7 +133,7 @@ public class Message {
      * @param sender command sender to send the message to
      */
     public void sendPrefixedMessage(CommandSender sender) {
-        this.message.sendTo(this.prefix, sender);
+        getChatMessage().sendTo(this.prefix, sender);
     }
 
     /**
@@ -129,7 +143,7 @@ public class Message {
      * @return the prefixed message
      */
     public String getPrefixedMessage() {
-        return TextUtils.formatText((prefix == null ? "" : this.prefix.toText()) + " " + this.message.toText());
+        return TextUtils.formatText((prefix == null ? "" : this.prefix.toText()) + " " + getChatMessage().toText());
     }
 
     /**
@@ -138,7 +152,7 @@ public class Message {
      * @return the message
      */
     public String getMessage() {
-        return TextUtils.formatText(this.message.toText());
+        return TextUtils.formatText(getChatMessage().toText());
     }
 
     /**
@@ -147,7 +161,7 @@ public class Message {
      * @return the message
      */
     public List<String> getMessageLines() {
-        return Arrays.asList(ChatColor.translateAlternateColorCodes('&', this.message.toText()).split("[\n|]"));
+        return Arrays.asList(ChatColor.translateAlternateColorCodes('&', getChatMessage().toText()).split("[\n|]"));
     }
 
     /**
@@ -156,7 +170,7 @@ public class Message {
      * @return the message
      */
     public String getUnformattedMessage() {
-        return this.message.toText();
+        return getChatMessage().toText();
     }
 
     /**
@@ -169,25 +183,60 @@ public class Message {
      * @return the modified Message
      */
     public Message processPlaceholder(String placeholder, Object replacement) {
-        final String place = Matcher.quoteReplacement(placeholder);
-        this.message = message.replaceAll("%" + place + "%|\\{" + place + "\\}", replacement == null ? "" : Matcher.quoteReplacement(replacement.toString()));
+        if (this.template == null) {
+            final String place = Matcher.quoteReplacement(placeholder);
+            this.message = message.replaceAll("%" + place + "%|\\{" + place + "\\}", replacement == null ? "" : Matcher.quoteReplacement(replacement.toString()));
+
+            return this;
+        }
+
+        if (this.placeholders.isEmpty()) {
+            this.placeholders = new HashMap<>();
+        }
+
+        this.placeholders.put(placeholder, replacement);
+        this.message = null;
+
+        return this;
+    }
+
+    /**
+     * Replace the provided placeholders with their objects. <br />
+     * Interchangeably Supports {@code %value%} and {@code {value}}
+     *
+     * @param placeholders the placeholders mapped to their replacement objects
+     *
+     * @return the modified Message
+     */
+    public Message processPlaceholders(Map<String, ?> placeholders) {
+        placeholders.forEach(this::processPlaceholder);
 
         return this;
     }
 
-    Message setPrefix(String prefix) {
-        this.prefix = new ChatMessage();
-        this.prefix.fromText(prefix + " ");
+    /**
+     * Fills in the placeholders once the message is needed, instead of on every {@link #processPlaceholder(String, Object)}
+     */
+    private ChatMessage getChatMessage() {
+        if (this.message == null) {
+            this.message = this.template.toChatMessage(this.placeholders);
+        }
+
+        return this.message;
+    }
+
+    Message setPrefix(ChatMessage prefix) {
+        this.prefix = prefix;
 
         return this;
     }
 
     @Override
     public String toString() {
-        return this.message.toString();
+        return getChatMessage().toString();
     }
 
     public String toText() {
-        return this.message.toText();
+        return getChatMessage().toText();
     }
 }
@@ -0,0 +1,197 @@
+package com.songoda.core.locale;
+
+import com.songoda.core.chat.ChatMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message text split into literal text and placeholder slots. <br>
+ * Placeholders are written as {@code %name%} or {@code {name}}, names can not contain whitespace.
+ * Templates are immutable and compiled once, rendering them is a single pass without any regular expressions.
+ * <br>
+ * Chat messages are parsed from the text before the placeholders are filled,
+ * so color codes in replacements, e.g. in player names, are shown as they are instead of changing the formatting.
+ */
+public class MessageTemplate {
+    /**
+     * private use character marking the placeholder slots in the parsed message
+     */
+    private static final char SLOT = '\uE000';
+
+    private final String text;
+    /**
+     * literal text and placeholder names, alternating, starting with literal text
+     */
+    private final String[] parts;
+    /**
+     * the placeholders as written in the text, used for placeholders without a replacement
+     */
+    private final String[] tokens;
+    private volatile ChatMessage chatMessage;
+    private volatile ChatMessage slotMessage;
+
+    private MessageTemplate(String text, String[] parts, String[] tokens) {
+        this.text = text;
+        this.parts = parts;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Split a message text into literal text and placeholder slots
+     *
+     * @param text the message text
+     *
+     * @return the compiled template
+     */
+    public static MessageTemplate compile(String text) {
+        List<String> parts = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+
+        int literalStart = 0;
+        for (int i = 0; i < text.length(); ++i) {
+            char c = text.charAt(i);
+
+            if (c != '%' && c != '{') {
+                continue;
+            }
+
+            int end = findPlaceholderEnd(text, i + 1, c == '%' ? '%' : '}');
+            if (end == -1) {
+                continue;
+            }
+
+            parts.add(text.substring(literalStart, i));
+            parts.add(text.substring(i + 1, end));
+            tokens.add(text.substring(i, end + 1));
+
+            literalStart = end + 1;
+            i = end;
+        }
+
+        parts.add(text.substring(literalStart));
+
+        return new MessageTemplate(text, parts.toArray(new String[0]), tokens.toArray(new String[0]));
+    }
+
+    private static int findPlaceholderEnd(String text, int start, char closing) {
+        for (int i = start; i < text.length(); ++i) {
+            char c = text.charAt(i);
+
+            if (c == closing) {
+                return i == start ? -1 : i;
+            }
+
+            if (Character.isWhitespace(c) || c == '%' || c == '{' || c == '}') {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the text this template has been compiled from
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return true if the text contains at least one placeholder
+     */
+    public boolean hasPlaceholders() {
+        return tokens.length != 0;
+    }
+
+    /**
+     * Fill the placeholder slots. Placeholders without a replacement are kept as they are. <br>
+     * The replacements are inserted as they are, so color codes in them take effect if the result is parsed again.
+     * Use {@link Message#processPlaceholder(String, Object)} to send messages with untrusted replacements.
+     *
+     * @param placeholders the replacements by placeholder name, null values are replaced with an empty string
+     *
+     * @return the rendered text
+     */
+    public String render(Map<String, ?> placeholders) {
+        if (tokens.length == 0 || placeholders.isEmpty()) {
+            return text;
+        }
+
+        StringBuilder result = new StringBuilder(text.length() + 16 * tokens.length);
+        result.append(parts[0]);
+
+        for (int slot = 0; slot < tokens.length; ++slot) {
+            String name = parts[slot * 2 + 1];
+
+            if (placeholders.containsKey(name)) {
+                Object replacement = placeholders.get(name);
+
+                if (replacement != null) {
+                    result.append(replacement);
+                }
+            } else {
+                result.append(tokens[slot]);
+            }
+
+            result.append(parts[slot * 2 + 2]);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Render the template and parse it into a chat message. <br>
+     * Without replacements the parsed message is cached and shared, so it must not be modified.
+     *
+     * @param placeholders the replacements by placeholder name
+     *
+     * @return the rendered chat message
+     */
+    ChatMessage toChatMessage(Map<String, ?> placeholders) {
+        if (tokens.length != 0 && !placeholders.isEmpty()) {
+            String[] values = new String[tokens.length];
+
+            for (int slot = 0; slot < tokens.length; ++slot) {
+                String name = parts[slot * 2 + 1];
+
+                if (placeholders.containsKey(name)) {
+                    Object replacement = placeholders.get(name);
+                    values[slot] = replacement != null ? replacement.toString() : null;
+                } else {
+                    values[slot] = tokens[slot];
+                }
+            }
+
+            return getSlotMessage().replaceMarkers(SLOT, values);
+        }
+
+        ChatMessage result = chatMessage;
+        if (result == null) {
+            chatMessage = result = new ChatMessage().fromText(text);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the text parsed with a {@link #SLOT} in place of every placeholder, shared and must not be modified
+     */
+    private ChatMessage getSlotMessage() {
+        ChatMessage result = slotMessage;
+
+        if (result == null) {
+            StringBuilder text = new StringBuilder(this.text.length());
+            text.append(parts[0]);
+
+            for (int slot = 0; slot < tokens.length; ++slot) {
+                text.append(SLOT).append(parts[slot * 2 + 2]);
+            }
+
+            slotMessage = result = new ChatMessage().fromText(text.toString());
+        }
+
+        return result;
+    }
+}
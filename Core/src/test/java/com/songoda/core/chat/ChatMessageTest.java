@@ -0,0 +1,57 @@
+package com.songoda.core.chat;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatMessageTest {
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void fromTextToText() {
+        assertEquals("plain text", new ChatMessage().fromText("plain text").toText());
+        assertEquals("&cRed &c&l&obold italic&0black", new ChatMessage().fromText("&cRed &l&obold italic&0black").toText());
+        assertEquals("&aGreen &rreset", new ChatMessage().fromText("&AGreen &rreset").toText());
+        assertEquals("100% & more &zz", new ChatMessage().fromText("100% & more &zz").toText());
+    }
+
+    @Test
+    void fromTextFormatsResetOnColor() {
+        assertEquals("&e&lbold&7gray", new ChatMessage().fromText("&e&lbold&7gray").toText());
+        assertEquals("&e&l&nboth", new ChatMessage().fromText("&e&l&nboth").toText());
+    }
+
+    @Test
+    void fromTextJson() {
+        assertEquals("[{\"text\":\"Hi \",\"color\":\"red\",\"obfuscated\":false,\"bold\":true,\"strikethrough\":false,\"underlined\":false,\"italic\":false,\"reset\":false}]",
+                new ChatMessage().fromText("&c&lHi ").toString());
+        assertEquals("[{\"text\":\"a\"},{\"text\":\"b\"}]", new ChatMessage().addMessage("a").addMessage("b").toString());
+    }
+
+    @Test
+    void fromTextHexColors() {
+        assertEquals(new ChatMessage().fromText("#12ab34hex", false).toString(), new ChatMessage().fromText("&#12ab34hex", false).toString());
+        assertEquals("#12ab3 is too short", new ChatMessage().fromText("#12ab3 is too short").toText());
+    }
+
+    @Test
+    void replaceAllInvalidatesJson() {
+        ChatMessage message = new ChatMessage().fromText("&aHello %player%");
+        String before = message.toString();
+
+        message.replaceAll("%player%", "Steve");
+
+        assertEquals(before.replace("%player%", "Steve"), message.toString());
+    }
+}
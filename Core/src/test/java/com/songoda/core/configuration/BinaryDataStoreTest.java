@@ -0,0 +1,90 @@
+package com.songoda.core.configuration;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryDataStoreTest {
+    @TempDir
+    File dir;
+
+    @Test
+    void replaysJournalOnSnapshot() throws IOException {
+        BinaryDataStore store = new BinaryDataStore(new File(dir, "data.dat"), new File(dir, "data.journal"));
+        store.writeSnapshot(Arrays.asList(
+                BinaryDataStore.encodePut("a", section("a", 1)),
+                BinaryDataStore.encodePut("b", section("b", 2))));
+
+        store.append(Arrays.asList(
+                BinaryDataStore.encodeRemove("a"),
+                BinaryDataStore.encodePut("b", section("b", 3)),
+                BinaryDataStore.encodePut("c", section("c", 4))));
+
+        Map<String, ConfigurationSection> entries = new BinaryDataStore(new File(dir, "data.dat"), new File(dir, "data.journal")).read();
+
+        assertFalse(entries.containsKey("a"));
+        assertEquals(3, entries.get("b").getInt("value"));
+        assertEquals(4, entries.get("c").getInt("value"));
+        assertEquals(Arrays.asList("x", "y"), entries.get("c").getStringList("list"));
+        assertEquals("nested", entries.get("c").getConfigurationSection("inner").getString("name"));
+    }
+
+    @Test
+    void ignoresTornJournalRecord() throws IOException {
+        File journal = new File(dir, "data.journal");
+        BinaryDataStore store = new BinaryDataStore(new File(dir, "data.dat"), journal);
+        store.append(Collections.singletonList(BinaryDataStore.encodePut("a", section("a", 1))));
+        store.append(Collections.singletonList(BinaryDataStore.encodePut("b", section("b", 2))));
+
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        BinaryDataStore reopened = new BinaryDataStore(new File(dir, "data.dat"), journal);
+        Map<String, ConfigurationSection> entries = reopened.read();
+
+        assertTrue(entries.containsKey("a"));
+        assertFalse(entries.containsKey("b"));
+        assertEquals(1, reopened.getJournalRecords());
+
+        // appending after the cut off record stays readable
+        reopened.append(Collections.singletonList(BinaryDataStore.encodePut("c", section("c", 3))));
+        assertTrue(new BinaryDataStore(new File(dir, "data.dat"), journal).read().containsKey("c"));
+    }
+
+    @Test
+    void snapshotReplacesJournal() throws IOException {
+        File journal = new File(dir, "data.journal");
+        BinaryDataStore store = new BinaryDataStore(new File(dir, "data.dat"), journal);
+        store.append(Collections.singletonList(BinaryDataStore.encodePut("a", section("a", 1))));
+
+        store.writeSnapshot(Collections.singletonList(BinaryDataStore.encodePut("b", section("b", 2))));
+
+        assertFalse(journal.exists());
+        assertEquals(Collections.singleton("b"), store.read().keySet());
+    }
+
+    private static ConfigurationSection section(String key, int value) {
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.options().pathSeparator('\0');
+
+        ConfigurationSection section = config.createSection(key);
+        section.set("value", value);
+        section.set("list", Arrays.asList("x", "y"));
+        section.createSection("inner").set("name", "nested");
+
+        return section;
+    }
+}
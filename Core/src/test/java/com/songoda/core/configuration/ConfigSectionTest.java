@@ -0,0 +1,87 @@
+package com.songoda.core.configuration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigSectionTest {
+    @Test
+    void getKeys() {
+        Config config = new Config();
+        config.set("a.b.c", 1);
+        config.set("a.d", 2);
+        config.set("e", 3);
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "e")), config.getKeys(false));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "a.b", "a.b.c", "a.d", "e")), config.getKeys(true));
+
+        ConfigSection section = config.getConfigurationSection("a");
+        assertEquals(new LinkedHashSet<>(Arrays.asList("b", "d")), section.getKeys(false));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("b", "b.c", "d")), section.getKeys(true));
+    }
+
+    @Test
+    void getKeysAfterReplacingSection() {
+        Config config = new Config();
+        config.set("a.b.c", 1);
+        config.set("e", 3);
+        config.set("a", 5);
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a", "e")), config.getKeys(true));
+        assertNull(config.get("a.b.c"));
+    }
+
+    @Test
+    void getValuesPrefersValuesOverDefaults() {
+        Config config = new Config();
+        config.addDefault("x", 1);
+        config.addDefault("y", 2);
+        config.set("x", 3);
+
+        assertEquals(3, config.getValues(false).get("x"));
+        assertEquals(2, config.getValues(false).get("y"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("x", "y")), config.getKeys(false));
+    }
+
+    @Test
+    void snapshotReads() {
+        Config config = new Config();
+        config.setSnapshotReads(true);
+        config.set("a.b", 1);
+
+        ConfigSnapshot snapshot = config.getSnapshot();
+        assertSame(snapshot, config.getSnapshot());
+        assertEquals(1, config.getInt("a.b"));
+
+        config.set("a.b", 2);
+        ConfigSnapshot updated = config.getSnapshot();
+
+        assertNotSame(snapshot, updated);
+        assertTrue(updated.getVersion() > snapshot.getVersion());
+        assertEquals(1, snapshot.get("a.b"));
+        assertEquals(2, config.getInt("a.b"));
+        assertEquals(2, config.getConfigurationSection("a").getInt("b"));
+    }
+
+    @Test
+    void snapshotReadsListKeys() {
+        Config config = new Config();
+        config.setSnapshotReads(true);
+        config.set("a.b", 1);
+        config.set("a.c", 2);
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("b", "c")), config.getConfigurationSection("a").getKeys(false));
+        assertEquals(2, config.getConfigurationSection("a").getValues(false).get("c"));
+
+        config.set("a.c", null);
+        assertEquals(new LinkedHashSet<>(Collections.singletonList("b")), config.getConfigurationSection("a").getKeys(false));
+    }
+}
@@ -0,0 +1,47 @@
+package com.songoda.core.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class QueryRunnerTest {
+    @Test
+    void insertAndQuery() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+             QueryRunner runner = new QueryRunner(connection)) {
+            runner.update("CREATE TABLE players (id INTEGER PRIMARY KEY AUTOINCREMENT, uuid VARCHAR(36), level INT)");
+
+            UUID uuid = UUID.randomUUID();
+            assertEquals(1, runner.insert("INSERT INTO players (uuid, level) VALUES (?, ?)", uuid, 5));
+            assertEquals(2, runner.insert("INSERT INTO players (uuid, level) VALUES (?, ?)", UUID.randomUUID(), 10));
+
+            assertEquals(uuid.toString(), runner.queryFirst("SELECT uuid FROM players WHERE level = ?", result -> result.getString(1), 5));
+            assertNull(runner.queryFirst("SELECT uuid FROM players WHERE level = ?", result -> result.getString(1), 42));
+
+            assertEquals(Arrays.asList(1, 2), runner.query("SELECT id FROM players ORDER BY id", result -> result.getInt(1)));
+        }
+    }
+
+    @Test
+    void batchAndCache() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+             QueryRunner runner = new QueryRunner(connection)) {
+            runner.update("CREATE TABLE numbers (value INT)");
+
+            int[] updated = runner.batch("INSERT INTO numbers VALUES (?)", Arrays.asList(new Object[] {1}, new Object[] {2}, new Object[] {3}));
+            assertEquals(3, updated.length);
+
+            String sql = "SELECT SUM(value) FROM numbers WHERE value >= ?";
+            assertSame(runner.prepare(sql, false, 0), runner.prepare(sql, false, 2));
+            assertEquals(Integer.valueOf(5), runner.queryFirst(sql, result -> result.getInt(1), 2));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.songoda.core.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedExecutorTest {
+    @Test
+    void keepsOrderPerKey() throws InterruptedException {
+        StripedExecutor executor = new StripedExecutor("Test", 4);
+
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> expected = new ArrayList<>();
+
+        for (int i = 0; i < 1000; ++i) {
+            int value = i;
+            expected.add(value);
+
+            executor.execute("first", () -> first.add(value));
+            executor.execute("second", () -> second.add(value));
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        assertEquals(2000, executor.getCompletedTaskCount());
+        assertEquals(0, executor.getPendingTaskCount());
+    }
+
+    @Test
+    void runsDifferentKeysInParallel() throws InterruptedException {
+        StripedExecutor executor = new StripedExecutor("Test", 2);
+
+        // Integer keys hash to themselves, so these end up on different stripes
+        Object blockedKey = 0;
+        Object otherKey = 1;
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+
+        executor.execute(blockedKey, () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignore) {
+            }
+        });
+        executor.execute(otherKey, otherRan::countDown);
+
+        assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+
+        // the other task is only counted as completed after it has returned
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getPendingTaskCount() != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, executor.getPendingTaskCount());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
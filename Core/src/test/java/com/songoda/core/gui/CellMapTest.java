@@ -0,0 +1,44 @@
+package com.songoda.core.gui;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CellMapTest {
+    @Test
+    void storesPositiveAndNegativeCells() {
+        CellMap<String> cells = new CellMap<>();
+        cells.put(4, "a");
+        cells.put(-6, "b");
+        cells.put(500, "c");
+
+        assertEquals("a", cells.get(4));
+        assertEquals("b", cells.get(-6));
+        assertEquals("c", cells.get(500));
+        assertNull(cells.get(5));
+        assertNull(cells.get(-4));
+        assertArrayEquals(new int[] {-6, 4, 500}, cells.getCells());
+        assertEquals(500, cells.getLastCell(0));
+
+        assertEquals("c", cells.remove(500));
+        assertEquals(4, cells.getLastCell(0));
+        assertEquals(2, cells.size());
+    }
+
+    @Test
+    void keepsCellsSetToNull() {
+        CellMap<String> cells = new CellMap<>();
+        cells.put(0, null);
+
+        assertTrue(cells.containsKey(0));
+        assertFalse(cells.isEmpty());
+
+        cells.clear();
+        assertFalse(cells.containsKey(0));
+        assertEquals(-1, cells.getLastCell(-1));
+    }
+}
@@ -0,0 +1,67 @@
+package com.songoda.core.gui;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GuiTest {
+    private ServerMock server;
+    private GuiManager manager;
+
+    @BeforeEach
+    void setUp() {
+        this.server = MockBukkit.mock();
+
+        MockPlugin plugin = MockBukkit.createMockPlugin();
+        this.manager = new GuiManager(plugin);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void pushesItemsModifiedAfterBeingSet() {
+        Gui gui = new Gui(1);
+        Inventory inventory = gui.generateInventory(this.manager);
+
+        ItemStack item = new ItemStack(Material.STONE);
+        gui.setItem(0, item);
+
+        ItemMeta meta = item.getItemMeta();
+        meta.setDisplayName("Renamed");
+        item.setItemMeta(meta);
+        gui.setItem(0, item);
+
+        assertEquals("Renamed", inventory.getItem(0).getItemMeta().getDisplayName());
+
+        gui.setItem(0, null);
+        assertNull(inventory.getItem(0));
+    }
+
+    @Test
+    void batchedUpdatesArePushedOnNextTick() {
+        Gui gui = new Gui(1);
+        Inventory inventory = gui.generateInventory(this.manager);
+        gui.open = true;
+        gui.setBatchUpdates(true);
+
+        gui.setItem(0, new ItemStack(Material.STONE));
+        gui.setItem(0, new ItemStack(Material.DIRT));
+        assertEquals(Material.LIGHT_BLUE_STAINED_GLASS_PANE, inventory.getItem(0).getType());
+
+        this.server.getScheduler().performOneTick();
+        assertEquals(Material.DIRT, inventory.getItem(0).getType());
+    }
+}
@@ -0,0 +1,66 @@
+package com.songoda.core.gui;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import com.songoda.core.compatibility.CompatibleMaterial;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class GuiUtilsTest {
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void cachedButtonItemsAreNotShared() {
+        ItemStack first = GuiUtils.createButtonItem(CompatibleMaterial.STONE, "Title", "Lore");
+
+        ItemMeta meta = first.getItemMeta();
+        meta.setDisplayName("Renamed");
+        first.setItemMeta(meta);
+        first.setAmount(5);
+
+        ItemStack second = GuiUtils.createButtonItem(CompatibleMaterial.STONE, "Title", "Lore");
+
+        assertNotSame(first, second);
+        assertEquals("Title", second.getItemMeta().getDisplayName());
+        assertEquals(Arrays.asList("Lore"), second.getItemMeta().getLore());
+        assertEquals(1, second.getAmount());
+    }
+
+    @Test
+    void changingTheLoreAfterCreatingAnItemDoesNotChangeTheCache() {
+        List<String> lore = new ArrayList<>(Arrays.asList("Title", "First"));
+        GuiUtils.createButtonItem(CompatibleMaterial.STONE, lore);
+
+        lore.set(1, "Second");
+        ItemStack item = GuiUtils.createButtonItem(CompatibleMaterial.STONE, lore);
+
+        assertEquals("Title", item.getItemMeta().getDisplayName());
+        assertEquals(Arrays.asList("Second"), item.getItemMeta().getLore());
+    }
+
+    @Test
+    void borderItemsAreNotShared() {
+        ItemStack first = GuiUtils.getBorderGlassItem();
+        first.setAmount(3);
+
+        assertNotSame(first, GuiUtils.getBorderGlassItem());
+        assertEquals(1, GuiUtils.getBorderGlassItem().getAmount());
+    }
+}
@@ -0,0 +1,55 @@
+package com.songoda.core.gui;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PagedItemSourceTest {
+    @Test
+    void buildsOnlyRequestedPages() {
+        AtomicInteger built = new AtomicInteger();
+        PagedItemSource source = new PagedItemSource(() -> 100, index -> {
+            built.incrementAndGet();
+            return new ItemStack(Material.STONE, index + 1);
+        });
+        source.setPageSize(45);
+
+        assertEquals(3, source.getPages());
+
+        ItemStack[] lastPage = source.getPage(3);
+        assertEquals(10, built.get());
+        assertEquals(91, lastPage[0].getAmount());
+        assertNull(lastPage[10]);
+
+        // served from the cache
+        source.getPage(3);
+        assertEquals(10, built.get());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPages() {
+        AtomicInteger built = new AtomicInteger();
+        PagedItemSource source = new PagedItemSource(() -> 10, index -> {
+            built.incrementAndGet();
+            return null;
+        }).setCachedPages(2);
+        source.setPageSize(1);
+
+        source.getPage(1);
+        source.getPage(2);
+        source.getPage(1);
+        source.getPage(3);
+        assertEquals(3, built.get());
+
+        // page 2 has been used least recently
+        source.getPage(1);
+        assertEquals(3, built.get());
+        source.getPage(2);
+        assertEquals(4, built.get());
+    }
+}
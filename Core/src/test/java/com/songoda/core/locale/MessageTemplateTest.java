@@ -0,0 +1,80 @@
+package com.songoda.core.locale;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import com.songoda.core.chat.ChatMessage;
+import com.songoda.core.chat.ColorCode;
+import com.songoda.core.chat.ColorContainer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageTemplateTest {
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void render() {
+        MessageTemplate template = MessageTemplate.compile("&7%player% has {amount} coins, %player%!");
+
+        Map<String, Object> placeholders = new HashMap<>();
+        placeholders.put("player", "Steve");
+        placeholders.put("amount", 5);
+
+        assertTrue(template.hasPlaceholders());
+        assertEquals("&7Steve has 5 coins, Steve!", template.render(placeholders));
+    }
+
+    @Test
+    void renderKeepsMissingPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("%a% and {b}");
+
+        assertEquals("1 and {b}", template.render(Collections.singletonMap("a", 1)));
+        assertEquals(" and {b}", template.render(Collections.singletonMap("a", null)));
+        assertEquals("%a% and {b}", template.render(Collections.emptyMap()));
+    }
+
+    @Test
+    void renderDoesNotReplaceRecursively() {
+        MessageTemplate template = MessageTemplate.compile("%a%%b%");
+
+        Map<String, Object> placeholders = new HashMap<>();
+        placeholders.put("a", "%b%");
+        placeholders.put("b", "x");
+
+        assertEquals("%b%x", template.render(placeholders));
+    }
+
+    @Test
+    void compileIgnoresPlainPercentSigns() {
+        MessageTemplate template = MessageTemplate.compile("50% off, 20% more {} %%");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals("50% off, 20% more {} %%", template.render(Collections.singletonMap("off", 1)));
+    }
+
+    @Test
+    void colorCodesInReplacementsStayLiteral() {
+        MessageTemplate template = MessageTemplate.compile("&a%player%&7 joined");
+
+        ChatMessage expected = new ChatMessage()
+                .addMessage("&cSteve", new ColorContainer(ColorCode.GREEN))
+                .addMessage(" joined", new ColorContainer(ColorCode.GRAY));
+
+        assertEquals(expected.toString(), template.toChatMessage(Collections.singletonMap("player", "&cSteve")).toString());
+    }
+}